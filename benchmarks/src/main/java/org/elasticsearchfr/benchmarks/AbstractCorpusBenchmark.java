@@ -0,0 +1,113 @@
+package org.elasticsearchfr.benchmarks;
+
+import java.io.File;
+
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearchfr.tests.helper.BeerCorpus;
+import org.elasticsearchfr.tests.helper.Corpus;
+import org.elasticsearchfr.tests.helper.CorpusFixtures;
+import org.elasticsearchfr.tests.helper.TestCluster;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Start a test cluster and build a read-only corpus before a benchmark trial.
+ * <br>Cluster size comes from <code>-Dtests.cluster.nodes</code> as for tests.
+ * Corpus size is a benchmark parameter: <code>-p corpusSize=1000000</code>
+ * <br>With <code>-Dtests.corpus.cache=dir</code>, corpus are built once and reopened from <code>dir</code>
+ * by the next trials (see {@link CorpusFixtures#persistent(boolean)}).
+ */
+@State(Scope.Benchmark)
+public abstract class AbstractCorpusBenchmark {
+
+	@Param({"10000"})
+	public int corpusSize;
+
+	@Param({"0"})
+	public long seed;
+
+	protected TestCluster cluster;
+
+	/**
+	 * Name to search
+	 */
+	protected String index;
+
+	/**
+	 * Time spent creating, indexing and refreshing the corpus
+	 */
+	protected long corpusMillis;
+
+	@Setup(Level.Trial)
+	public void setUpCorpus() throws Exception {
+		cluster = new TestCluster(Integer.getInteger("tests.cluster.nodes", 1), nodeSettings());
+		cluster.start();
+
+		Corpus corpus = corpus();
+		long start = System.currentTimeMillis();
+		CorpusFixtures fixtures = new CorpusFixtures(cluster.client(0)).persistent(cache() != null);
+		if (cache() != null) {
+			fixtures.removeUnfinished();
+		}
+		index = fixtures.readOnly(corpus);
+		corpusMillis = System.currentTimeMillis() - start;
+
+		setUp(cluster.client(0));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDownCorpus() throws Exception {
+		tearDown(cluster.client(0));
+		cluster.close();
+	}
+
+	/**
+	 * @return settings added to each node, over elasticsearch.yml. None by default, or the corpus cache ones.
+	 */
+	protected Settings nodeSettings() {
+		if (cache() != null) {
+			return CorpusFixtures.persistentSettings(new File(cache()));
+		}
+		return ImmutableSettings.Builder.EMPTY_SETTINGS;
+	}
+
+	private static String cache() {
+		return System.getProperty("tests.corpus.cache");
+	}
+
+	/**
+	 * @return the corpus to search. Beers by default.
+	 */
+	protected Corpus corpus() {
+		return new BeerCorpus("meal", corpusSize, seed);
+	}
+
+	/**
+	 * Called once the corpus is ready
+	 * @param client
+	 * @throws Exception
+	 */
+	protected void setUp(Client client) throws Exception {
+	}
+
+	/**
+	 * Called before the cluster is stopped
+	 * @param client
+	 * @throws Exception
+	 */
+	protected void tearDown(Client client) throws Exception {
+	}
+
+	/**
+	 * @return a client on one of the cluster nodes
+	 */
+	protected Client client() {
+		return cluster.client();
+	}
+}
@@ -0,0 +1,41 @@
+package org.elasticsearchfr.benchmarks;
+
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.index.query.FilterBuilder;
+import org.elasticsearchfr.tests.dsl.FilterCatalog;
+import org.elasticsearchfr.tests.helper.CacheStatsHelper;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Run each filter of {@link FilterCatalog} (the ES006 filters) cached and not cached.
+ * <br>Benchmarks report the filter cache size read from node stats next to their timings.
+ */
+public abstract class AbstractFilterBenchmark extends AbstractCorpusBenchmark {
+
+	@Param({"term", "terms_plain", "terms_bool", "terms_and", "terms_or", "range", "numericRange",
+			"prefix", "script", "bool", "and", "or", "not"})
+	public String filter;
+
+	@Param({"true", "false"})
+	public boolean cache;
+
+	private FilterBuilder fb;
+
+	@Override
+	protected void setUp(Client client) throws Exception {
+		fb = FilterCatalog.filter(filter, cache);
+		CacheStatsHelper.clearFilterCache(client, index);
+	}
+
+	protected SearchResponse search() {
+		return client().prepareSearch(index).setFilter(fb).execute().actionGet();
+	}
+
+	/**
+	 * @return the filter cache size of all nodes, in bytes
+	 */
+	protected long filterCacheSize() {
+		return CacheStatsHelper.filterCacheSize(cluster.client(0));
+	}
+}
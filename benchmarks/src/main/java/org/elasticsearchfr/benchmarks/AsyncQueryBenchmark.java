@@ -0,0 +1,92 @@
+package org.elasticsearchfr.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearchfr.tests.dsl.QueryCatalog;
+import org.elasticsearchfr.tests.helper.AsyncSearchClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Run the ES005 query mix from one client thread, blocking on each search or pipelined
+ * with an {@link AsyncSearchClient}.
+ * <br>Each benchmark thread has its own {@link AsyncSearchClient}: <code>outstanding</code> bounds
+ * the searches in flight per thread, up to <code>outstanding</code> times <code>-t</code> in all.
+ * <br>Use <code>-t</code> to see how each mode scales with client threads:
+ * <pre>
+ * java -jar target/benchmarks.jar AsyncQueryBenchmark -p outstanding=1,8,64 -t 1
+ * java -jar target/benchmarks.jar AsyncQueryBenchmark -p outstanding=1,8,64 -t 4
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class AsyncQueryBenchmark extends AbstractCorpusBenchmark {
+
+	private static final int BATCH = 100;
+
+	@Param({"1", "8", "64"})
+	public int outstanding;
+
+	private List<SearchRequest> requests;
+
+	/**
+	 * Searches in flight of one benchmark thread
+	 */
+	@State(Scope.Thread)
+	public static class Pipeline {
+		private AsyncSearchClient async;
+
+		@Setup(Level.Trial)
+		public void setUp(AsyncQueryBenchmark benchmark) {
+			async = new AsyncSearchClient(benchmark.client(), benchmark.outstanding);
+		}
+	}
+
+	@Override
+	protected void setUp(Client client) throws Exception {
+		List<String> names = new ArrayList<String>(QueryCatalog.names());
+		requests = new ArrayList<SearchRequest>();
+		for (int i = 0; i < BATCH; i++) {
+			requests.add(client.prepareSearch(index).setQuery(QueryCatalog.query(names.get(i % names.size()))).request());
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public long blocking() {
+		long hits = 0;
+		for (SearchRequest request : requests) {
+			hits += client().search(request).actionGet().getHits().getTotalHits();
+		}
+		return hits;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public long pipelined(Pipeline pipeline) throws Exception {
+		long hits = 0;
+		for (SearchResponse response : pipeline.async.searchAll(requests).actionGet()) {
+			hits += response.getHits().getTotalHits();
+		}
+		return hits;
+	}
+}
@@ -0,0 +1,44 @@
+package org.elasticsearchfr.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.ThreadParams;
+
+/**
+ * A cache size reported as a <code>cacheBytes</code> JMH result next to the timings of a benchmark.
+ * <ul>
+ * <li>The size is a gauge, not an event count: it is read once per iteration, by the first benchmark
+ * thread. Other threads report 0, so the sum JMH makes over threads is the size itself, whatever
+ * <code>-t</code>.</li>
+ * <li>JMH reports aux counters in Throughput and AverageTime modes only: with
+ * <code>Mode.SampleTime</code>, the size shows in the Throughput results of the same run.</li>
+ * </ul>
+ * Benchmarks extend it with a nested <code>@State(Scope.Thread)</code>,
+ * <code>@AuxCounters(AuxCounters.Type.EVENTS)</code> class which gets the benchmark state in its
+ * trial setup and implements {@link #read()}.
+ */
+public abstract class CacheGauge {
+
+	/**
+	 * Cache size in bytes, for the last iteration
+	 */
+	public long cacheBytes;
+
+	private boolean reporter;
+
+	@Setup(Level.Trial)
+	public void setUpReporter(ThreadParams threads) {
+		reporter = threads.getThreadIndex() == 0;
+	}
+
+	@TearDown(Level.Iteration)
+	public void report() {
+		cacheBytes = reporter ? read() : 0;
+	}
+
+	/**
+	 * @return the cache size in bytes. Only called by the first benchmark thread.
+	 */
+	protected abstract long read();
+}
@@ -0,0 +1,88 @@
+package org.elasticsearchfr.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.ESLoggerFactory;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearchfr.tests.dsl.FacetCatalog;
+import org.elasticsearchfr.tests.dsl.QueryCatalog;
+import org.elasticsearchfr.tests.helper.CachingSearchClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Replay the ES005 queries and ES007 facets, like dashboards do, through a {@link CachingSearchClient}.
+ * <br>With <code>maxEntries</code> smaller than the number of searches, the cache evicts.
+ * With <code>refreshEvery</code> &gt; 0, the index is refreshed (and the cache invalidated) every
+ * <code>refreshEvery</code> searches. A <code>maxEntries</code> of 0 sends every search.
+ * Cache metrics are logged at the end of each trial.
+ * <pre>
+ * java -jar target/benchmarks.jar CachingBenchmark -p maxEntries=0,10,100 -p refreshEvery=0,1000
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CachingBenchmark extends AbstractCorpusBenchmark {
+	protected final ESLogger logger = ESLoggerFactory.getLogger(this.getClass().getName());
+
+	@Param({"0", "10", "100"})
+	public int maxEntries;
+
+	@Param({"0"})
+	public int refreshEvery;
+
+	private final List<SearchRequest> requests = new ArrayList<SearchRequest>();
+	private final AtomicInteger next = new AtomicInteger();
+	private CachingSearchClient cache;
+
+	@Override
+	protected void setUp(Client client) throws Exception {
+		for (String name : QueryCatalog.names()) {
+			requests.add(client.prepareSearch(index).setQuery(QueryCatalog.query(name)).request());
+		}
+		for (String name : FacetCatalog.names()) {
+			requests.add(client.prepareSearch(index)
+					.setQuery(QueryBuilders.matchAllQuery())
+					.setSize(0)
+					.addFacet(FacetCatalog.facet(name))
+					.request());
+		}
+		// The corpus only changes when refreshEvery says so: responses never get stale by themselves
+		cache = new CachingSearchClient(client, maxEntries).maxAge(TimeValue.timeValueMillis(-1));
+	}
+
+	@Override
+	protected void tearDown(Client client) throws Exception {
+		logger.info("max entries [{}], refresh every [{}]: {}", maxEntries, refreshEvery, cache.stats());
+	}
+
+	@Benchmark
+	public SearchResponse search() {
+		int n = next.getAndIncrement();
+		if (refreshEvery > 0 && n % refreshEvery == 0) {
+			cache.refresh(index);
+		}
+		SearchRequest request = requests.get(Math.abs(n % requests.size()));
+		if (maxEntries == 0) {
+			return client().search(request).actionGet();
+		}
+		return cache.search(request);
+	}
+}
@@ -0,0 +1,67 @@
+package org.elasticsearchfr.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.elasticsearch.action.search.MultiSearchResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.ESLoggerFactory;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearchfr.tests.dsl.QueryCatalog;
+import org.elasticsearchfr.tests.helper.CoalescingSearchClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Many client threads search at the same time through a {@link CoalescingSearchClient}.
+ * <br>A window of 0 sends each search alone in a multi search: compare it with longer windows
+ * to see throughput gained against latency added. Mean batch size is logged at the end of each trial.
+ * <pre>
+ * java -jar target/benchmarks.jar CoalescingBenchmark -p windowMillis=0,1,5 -p maxBatch=10,100 -t 32
+ * </pre>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Threads(16)
+@Fork(1)
+public class CoalescingBenchmark extends AbstractCorpusBenchmark {
+	protected final ESLogger logger = ESLoggerFactory.getLogger(this.getClass().getName());
+
+	@Param({"0", "1", "5"})
+	public int windowMillis;
+
+	@Param({"50"})
+	public int maxBatch;
+
+	private CoalescingSearchClient coalescing;
+	private SearchRequest request;
+
+	@Override
+	protected void setUp(Client client) throws Exception {
+		coalescing = new CoalescingSearchClient(client, TimeValue.timeValueMillis(windowMillis), maxBatch);
+		request = client.prepareSearch(index).setQuery(QueryCatalog.query("term")).request();
+	}
+
+	@Override
+	protected void tearDown(Client client) throws Exception {
+		logger.info("window [{}ms], max batch [{}]: {} searches in {} multi searches ({} per multi search)",
+				windowMillis, maxBatch, coalescing.getSearches(), coalescing.getMultiSearches(),
+				String.format("%.1f", coalescing.getMeanBatchSize()));
+		coalescing.close();
+	}
+
+	@Benchmark
+	public MultiSearchResponse.Item search() {
+		return coalescing.search(request).actionGet();
+	}
+}
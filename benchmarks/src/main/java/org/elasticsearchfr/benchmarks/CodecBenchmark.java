@@ -0,0 +1,97 @@
+package org.elasticsearchfr.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearchfr.tests.bean.Beer;
+import org.elasticsearchfr.tests.bean.BeerCodec;
+import org.elasticsearchfr.tests.bean.BeerCodec.Format;
+import org.elasticsearchfr.tests.bean.BeerGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compare the {@link BeerCodec} with an ObjectMapper, created for each call (as BeerHelper used to do) or shared,
+ * and JSON with SMILE documents.
+ * <br>No cluster is needed. Use the gc profiler to see allocations per operation:
+ * <pre>
+ * java -jar target/benchmarks.jar CodecBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final BeerCodec codec = new BeerCodec();
+	private final BeerCodec smileCodec = new BeerCodec(Format.SMILE);
+
+	private Beer beer;
+	private Beer reuse;
+	private byte[] json;
+	private BytesArray source;
+	private BytesArray smileSource;
+
+	@Setup
+	public void setUp() throws Exception {
+		beer = new BeerGenerator(0).beer(0);
+		reuse = new Beer();
+		json = mapper.writeValueAsBytes(beer);
+		source = new BytesArray(json);
+		smileSource = new BytesArray(smileCodec.encode(beer));
+	}
+
+	@Benchmark
+	public byte[] writeMapperPerCall() throws Exception {
+		return new ObjectMapper().writeValueAsString(beer).getBytes("UTF-8");
+	}
+
+	@Benchmark
+	public byte[] writeSharedMapper() throws Exception {
+		return mapper.writeValueAsBytes(beer);
+	}
+
+	@Benchmark
+	public byte[] writeCodec() throws Exception {
+		return codec.encode(beer);
+	}
+
+	@Benchmark
+	public byte[] writeSmileCodec() throws Exception {
+		return smileCodec.encode(beer);
+	}
+
+	@Benchmark
+	public Beer readMapperPerCall() throws Exception {
+		return new ObjectMapper().readValue(new String(json, "UTF-8").getBytes(), Beer.class);
+	}
+
+	@Benchmark
+	public Beer readSharedMapper() throws Exception {
+		return mapper.readValue(json, Beer.class);
+	}
+
+	@Benchmark
+	public Beer readCodec() throws Exception {
+		return codec.read(source, reuse);
+	}
+
+	@Benchmark
+	public Beer readSmileCodec() throws Exception {
+		return codec.read(smileSource, reuse);
+	}
+}
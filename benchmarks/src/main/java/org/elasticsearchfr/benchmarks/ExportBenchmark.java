@@ -0,0 +1,68 @@
+package org.elasticsearchfr.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearchfr.tests.helper.ScanExporter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Export the whole corpus with deep from/size paging or with {@link ScanExporter}.
+ * <br>With scan, <code>slices</code> threads scroll price ranges in parallel (1 means one scroll).
+ * <pre>
+ * java -jar target/benchmarks.jar ExportBenchmark -p corpusSize=100000,1000000 -p slices=1,4,8
+ * </pre>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExportBenchmark extends AbstractCorpusBenchmark {
+
+	@Param({"1000"})
+	public int pageSize;
+
+	@Param({"1", "4"})
+	public int slices;
+
+	@Benchmark
+	public long fromSize() {
+		long exported = 0;
+		for (int from = 0; ; from += pageSize) {
+			SearchResponse sr = client().prepareSearch(index)
+					.setQuery(QueryBuilders.matchAllQuery())
+					.setFrom(from)
+					.setSize(pageSize)
+					.execute().actionGet();
+			if (sr.getHits().getHits().length == 0) {
+				return exported;
+			}
+			exported += sr.getHits().getHits().length;
+		}
+	}
+
+	@Benchmark
+	public long scan() throws Exception {
+		final AtomicLong bytes = new AtomicLong();
+		new ScanExporter(client())
+				.size(pageSize)
+				.slices(ScanExporter.rangeSlices("price", 0, 10, slices))
+				.export(index, new ScanExporter.HitHandler() {
+					public void hit(SearchHit hit) throws Exception {
+						bytes.addAndGet(hit.sourceRef().length());
+					}
+				});
+		return bytes.get();
+	}
+}
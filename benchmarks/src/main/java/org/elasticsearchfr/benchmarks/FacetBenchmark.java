@@ -0,0 +1,111 @@
+package org.elasticsearchfr.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.ESLoggerFactory;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.facet.FacetBuilder;
+import org.elasticsearchfr.tests.dsl.FacetCatalog;
+import org.elasticsearchfr.tests.helper.BeerCorpus;
+import org.elasticsearchfr.tests.helper.CacheStatsHelper;
+import org.elasticsearchfr.tests.helper.Corpus;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Run each facet of {@link FacetCatalog} (the ES007 facets) over corpora of growing size
+ * and brand cardinality.
+ * <br>Field data loaded by the first facet execution (field data cache growth read from indices
+ * stats) is reported as <code>cacheBytes</code> with the timings (see {@link CacheGauge}).
+ * <pre>
+ * java -jar target/benchmarks.jar FacetBenchmark -p corpusSize=100000,1000000 -p brands=3,1000,100000
+ * </pre>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class FacetBenchmark extends AbstractCorpusBenchmark {
+	protected final ESLogger logger = ESLoggerFactory.getLogger(this.getClass().getName());
+
+	@Param({"terms", "range", "histogram", "dateHistogram", "filter", "query", "statistical",
+			"termsStats", "termsWithFacetFilter"})
+	public String facet;
+
+	@Param({"3", "100", "10000"})
+	public int brands;
+
+	private FacetBuilder fb;
+
+	/**
+	 * Field data loaded by the first search of the trial
+	 */
+	private long fieldDataGrowth;
+
+	@Override
+	protected Corpus corpus() {
+		return new BeerCorpus("meal", corpusSize, seed, brands);
+	}
+
+	@Override
+	protected void setUp(Client client) throws Exception {
+		fb = FacetCatalog.facet(facet);
+
+		CacheStatsHelper.clearFieldDataCache(client, index);
+		long before = CacheStatsHelper.fieldDataCacheSize(client, index);
+		long start = System.nanoTime();
+		searchFacet();
+		long took = System.nanoTime() - start;
+		fieldDataGrowth = CacheStatsHelper.fieldDataCacheSize(client, index) - before;
+
+		logger.info("facet [{}], corpus [{}], brands [{}]: first run took {} ms and loaded {} bytes of field data",
+				facet, corpusSize, brands, TimeUnit.NANOSECONDS.toMillis(took), fieldDataGrowth);
+	}
+
+	/**
+	 * Field data loaded by the first search, measured once per trial in {@link FacetBenchmark#setUp(Client)}
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class FieldDataGauge extends CacheGauge {
+		private FacetBenchmark benchmark;
+
+		@Setup(Level.Trial)
+		public void setUp(FacetBenchmark benchmark) {
+			this.benchmark = benchmark;
+		}
+
+		@Override
+		protected long read() {
+			return benchmark.fieldDataGrowth;
+		}
+	}
+
+	@Benchmark
+	public SearchResponse search(FieldDataGauge gauge) {
+		return searchFacet();
+	}
+
+	private SearchResponse searchFacet() {
+		return client().prepareSearch(index)
+				.setQuery(QueryBuilders.matchAllQuery())
+				.setSize(0)
+				.addFacet(fb)
+				.execute().actionGet();
+	}
+}
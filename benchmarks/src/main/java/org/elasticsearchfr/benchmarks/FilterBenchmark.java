@@ -0,0 +1,57 @@
+package org.elasticsearchfr.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.elasticsearch.action.search.SearchResponse;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Warm filter execution: throughput and latency percentiles once caches are loaded.
+ * <pre>
+ * java -jar target/benchmarks.jar FilterBenchmark -p corpusSize=1000,10000,100000,1000000,10000000
+ * </pre>
+ * The filter cache size is reported as <code>cacheBytes</code> with the throughput (see {@link CacheGauge}).
+ * <br>See {@link FilterFirstHitBenchmark} for the first execution cost.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class FilterBenchmark extends AbstractFilterBenchmark {
+
+	/**
+	 * Filter cache size at the end of each iteration
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class FilterCacheGauge extends CacheGauge {
+		private FilterBenchmark benchmark;
+
+		@Setup(Level.Trial)
+		public void setUp(FilterBenchmark benchmark) {
+			this.benchmark = benchmark;
+		}
+
+		@Override
+		protected long read() {
+			return benchmark.filterCacheSize();
+		}
+	}
+
+	@Benchmark
+	public SearchResponse warm(FilterCacheGauge gauge) {
+		return search();
+	}
+}
@@ -0,0 +1,62 @@
+package org.elasticsearchfr.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearchfr.tests.helper.CacheStatsHelper;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * First filter execution: the filter cache is cleared before each call (out of the measured time),
+ * so cached filters pay for building their bitsets.
+ * <br>The filter cache size after the last call of each iteration, which is what one first hit
+ * loads, is reported as <code>cacheBytes</code> with the average time (see {@link CacheGauge}).
+ * <br>Compare with {@link FilterBenchmark} to get first-hit vs warm latency.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class FilterFirstHitBenchmark extends AbstractFilterBenchmark {
+
+	/**
+	 * Filter cache size at the end of each iteration
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class FilterCacheGauge extends CacheGauge {
+		private FilterFirstHitBenchmark benchmark;
+
+		@Setup(Level.Trial)
+		public void setUp(FilterFirstHitBenchmark benchmark) {
+			this.benchmark = benchmark;
+		}
+
+		@Override
+		protected long read() {
+			return benchmark.filterCacheSize();
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void clearFilterCache() {
+		CacheStatsHelper.clearFilterCache(cluster.client(0), index);
+	}
+
+	@Benchmark
+	public SearchResponse firstHit(FilterCacheGauge gauge) {
+		return search();
+	}
+}
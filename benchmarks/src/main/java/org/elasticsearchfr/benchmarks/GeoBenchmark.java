@@ -0,0 +1,109 @@
+package org.elasticsearchfr.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.ESLoggerFactory;
+import org.elasticsearch.index.query.FilterBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.facet.FacetBuilder;
+import org.elasticsearchfr.tests.bean.BeerGenerator;
+import org.elasticsearchfr.tests.dsl.FacetCatalog;
+import org.elasticsearchfr.tests.dsl.FilterCatalog;
+import org.elasticsearchfr.tests.helper.BeerCorpus;
+import org.elasticsearchfr.tests.helper.CacheStatsHelper;
+import org.elasticsearchfr.tests.helper.Corpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Run the ES006 geo filters (geo distance with each <code>optimize_bbox</code> mode, geo distance range,
+ * bounding box and polygon) and the ES007 geo distance facet over millions of clustered points.
+ * <br>Filters are not cached so each search checks the points. Geo points loaded in field data by
+ * the first search are logged. Corpus size defaults to 10000 beers: set it to millions.
+ * <pre>
+ * java -jar target/benchmarks.jar GeoBenchmark -p corpusSize=1000000,10000000 -p clusters=20,1000
+ * </pre>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class GeoBenchmark extends AbstractCorpusBenchmark {
+	protected final ESLogger logger = ESLoggerFactory.getLogger(this.getClass().getName());
+
+	/**
+	 * A geo filter of {@link FilterCatalog}, or <code>facet</code> for the geo distance facet
+	 */
+	@Param({"geoDistance_memory", "geoDistance_indexed", "geoDistance_none", "geoDistanceRange",
+			"geoBoundingBox", "geoPolygon", "facet"})
+	public String geo;
+
+	/**
+	 * Number of location clusters (see {@link BeerGenerator#locations(int, double)})
+	 */
+	@Param({"20"})
+	public int clusters;
+
+	/**
+	 * Standard deviation of points around their cluster centre, in degrees
+	 */
+	@Param({"0.2"})
+	public double spread;
+
+	private FilterBuilder fb;
+	private FacetBuilder facet;
+
+	@Override
+	protected Corpus corpus() {
+		return new BeerCorpus("meal", corpusSize, new BeerGenerator(seed).locations(clusters, spread));
+	}
+
+	@Override
+	protected void setUp(Client client) throws Exception {
+		if ("facet".equals(geo)) {
+			facet = FacetCatalog.facet("geoDistance");
+		} else {
+			fb = FilterCatalog.filter(geo, false);
+		}
+
+		CacheStatsHelper.clearFilterCache(client, index);
+		CacheStatsHelper.clearFieldDataCache(client, index);
+
+		long before = CacheStatsHelper.fieldDataCacheSize(client, index);
+		long start = System.nanoTime();
+		SearchResponse first = search();
+		long took = System.nanoTime() - start;
+		long after = CacheStatsHelper.fieldDataCacheSize(client, index);
+
+		logger.info("geo [{}], corpus [{}], clusters [{}]: first run took {} ms, found {} beers and loaded {} bytes of field data",
+				geo, corpusSize, clusters, TimeUnit.NANOSECONDS.toMillis(took), first.getHits().getTotalHits(), after - before);
+	}
+
+	@Override
+	protected void tearDown(Client client) throws Exception {
+		logger.info("geo [{}], corpus [{}], clusters [{}]: field data cache is {} bytes",
+				geo, corpusSize, clusters, CacheStatsHelper.fieldDataCacheSize(client, index));
+	}
+
+	@Benchmark
+	public SearchResponse search() {
+		if (facet != null) {
+			return client().prepareSearch(index)
+					.setQuery(QueryBuilders.matchAllQuery())
+					.setSize(0)
+					.addFacet(facet)
+					.execute().actionGet();
+		}
+		return client().prepareSearch(index).setFilter(fb).execute().actionGet();
+	}
+}
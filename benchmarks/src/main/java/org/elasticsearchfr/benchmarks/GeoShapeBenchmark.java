@@ -0,0 +1,93 @@
+package org.elasticsearchfr.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.geo.ShapeRelation;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.ESLoggerFactory;
+import org.elasticsearch.index.query.FilterBuilder;
+import org.elasticsearch.index.query.FilterBuilders;
+import org.elasticsearchfr.tests.helper.Corpus;
+import org.elasticsearchfr.tests.helper.IndexStatsHelper;
+import org.elasticsearchfr.tests.helper.ShapeCorpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.spatial4j.core.context.SpatialContext;
+import com.spatial4j.core.shape.impl.RectangleImpl;
+
+/**
+ * Geo shape filters (WITHIN, INTERSECTS, DISJOINT) over the polygons of a {@link ShapeCorpus}, for each
+ * prefix tree and number of tree levels.
+ * <br>The query shape is a box around France, or France outline pre-indexed in the corpus.
+ * Each tree and precision is a corpus of its own: its index size is logged when the trial starts,
+ * along with the number of shapes found.
+ * <pre>
+ * java -jar target/benchmarks.jar GeoShapeBenchmark -p tree=geohash -p treeLevels=4,6,8
+ * java -jar target/benchmarks.jar GeoShapeBenchmark -p tree=quadtree -p treeLevels=10,15,20
+ * </pre>
+ * A quadtree level halves the cell size where a geohash level divides it by 4 to 8: compare trees at
+ * the same cell size, not at the same number of levels.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class GeoShapeBenchmark extends AbstractCorpusBenchmark {
+	protected final ESLogger logger = ESLoggerFactory.getLogger(this.getClass().getName());
+
+	@Param({"geohash", "quadtree"})
+	public String tree;
+
+	@Param({"4", "6", "8"})
+	public int treeLevels;
+
+	@Param({"WITHIN", "INTERSECTS", "DISJOINT"})
+	public String relation;
+
+	/**
+	 * <code>box</code> sends the query shape, <code>indexed</code> has elasticsearch get it from the corpus
+	 */
+	@Param({"box", "indexed"})
+	public String shape;
+
+	private FilterBuilder fb;
+
+	@Override
+	protected Corpus corpus() {
+		return new ShapeCorpus("shapes", corpusSize, seed, tree, treeLevels);
+	}
+
+	@Override
+	protected void setUp(Client client) throws Exception {
+		if ("indexed".equals(shape)) {
+			fb = FilterBuilders.geoShapeFilter(ShapeCorpus.FIELD, "France", ShapeCorpus.COUNTRIES)
+					.relation(ShapeRelation.valueOf(relation));
+		} else {
+			fb = FilterBuilders.geoShapeFilter(ShapeCorpus.FIELD, new RectangleImpl(-5, 8, 42, 51, SpatialContext.GEO))
+					.relation(ShapeRelation.valueOf(relation));
+		}
+
+		long size = IndexStatsHelper.primaryStoreSize(client, index);
+		logger.info("tree [{}], levels [{}], corpus [{}]: index is {} bytes ({} bytes per shape), {} [{}] finds {} shapes",
+				tree, treeLevels, corpusSize, size, size / Math.max(1, corpusSize),
+				relation, shape, search().getHits().getTotalHits());
+	}
+
+	@Benchmark
+	public SearchResponse search() {
+		return client().prepareSearch(index)
+				.setTypes(ShapeCorpus.TYPE)
+				.setFilter(fb)
+				.execute().actionGet();
+	}
+}
@@ -0,0 +1,83 @@
+package org.elasticsearchfr.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearchfr.tests.bean.Beer;
+import org.elasticsearchfr.tests.bean.BeerHelper;
+import org.elasticsearchfr.tests.bean.BeerHits;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Decode a page of hits into beers:
+ * <ul>
+ * <li><code>sourceAsString</code>: as tests used to do, a new ObjectMapper for each hit reading
+ * <code>getSourceAsString()</code>. This is the baseline.</li>
+ * <li><code>helper</code>: {@link BeerHelper#toBeer(String)}, which now decodes the string with a shared codec.</li>
+ * <li><code>inPlace</code>: {@link BeerHits}, from the source bytes into a reused beer.</li>
+ * </ul>
+ * The page is fetched once: only decoding is measured. Use the gc profiler to compare allocations:
+ * <pre>
+ * java -jar target/benchmarks.jar HitDecodeBenchmark -p pageSize=10,1000 -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class HitDecodeBenchmark extends AbstractCorpusBenchmark {
+
+	@Param({"10", "100", "1000"})
+	public int pageSize;
+
+	private SearchResponse page;
+
+	@Override
+	protected void setUp(Client client) throws Exception {
+		page = client.prepareSearch(index)
+				.setQuery(QueryBuilders.matchAllQuery())
+				.setSize(pageSize)
+				.execute().actionGet();
+	}
+
+	@Benchmark
+	public double sourceAsString() throws Exception {
+		double total = 0;
+		for (SearchHit hit : page.getHits()) {
+			total += new ObjectMapper().readValue(hit.getSourceAsString(), Beer.class).getPrice();
+		}
+		return total;
+	}
+
+	@Benchmark
+	public double helper() throws Exception {
+		double total = 0;
+		for (SearchHit hit : page.getHits()) {
+			total += BeerHelper.toBeer(hit.getSourceAsString()).getPrice();
+		}
+		return total;
+	}
+
+	@Benchmark
+	public double inPlace() throws Exception {
+		double total = 0;
+		Beer beer = new Beer();
+		for (SearchHit hit : page.getHits()) {
+			total += BeerHits.toBeer(hit, beer).getPrice();
+		}
+		return total;
+	}
+}
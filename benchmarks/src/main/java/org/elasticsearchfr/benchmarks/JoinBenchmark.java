@@ -0,0 +1,128 @@
+package org.elasticsearchfr.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.ESLoggerFactory;
+import org.elasticsearch.index.query.FilterBuilders;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearchfr.tests.helper.BreweryCorpus;
+import org.elasticsearchfr.tests.helper.CacheStatsHelper;
+import org.elasticsearchfr.tests.helper.Corpus;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parent/child joins (the ES005 and ES006 has_child, has_parent and top_children searches) over a
+ * {@link BreweryCorpus} of <code>corpusSize</code> beers, <code>fanOut</code> beers per brewery.
+ * <br>Joins load parent ids of the whole index in the id cache. The id cache loaded by the first search
+ * is reported as <code>cacheBytes</code> with the join timings (see {@link CacheGauge}), and logged with
+ * the time this search took.
+ * <pre>
+ * java -jar target/benchmarks.jar JoinBenchmark -p corpusSize=100000,1000000 -p fanOut=1,10,100
+ * </pre>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class JoinBenchmark extends AbstractCorpusBenchmark {
+	protected final ESLogger logger = ESLoggerFactory.getLogger(this.getClass().getName());
+
+	@Param({"hasChildQuery", "hasChildFilter", "hasParentQuery", "hasParentFilter", "topChildren"})
+	public String join;
+
+	/**
+	 * Mean number of beers per brewery
+	 */
+	@Param({"1", "10", "100"})
+	public int fanOut;
+
+	/**
+	 * Id cache loaded by the first search of the trial
+	 */
+	private long idCacheGrowth;
+
+	@Override
+	protected Corpus corpus() {
+		return new BreweryCorpus("breweries", Math.max(1, corpusSize / fanOut), fanOut, seed);
+	}
+
+	@Override
+	protected void setUp(Client client) throws Exception {
+		CacheStatsHelper.clearIdCache(client, index);
+
+		long before = CacheStatsHelper.idCacheSize(client, index);
+		long start = System.nanoTime();
+		SearchResponse first = runJoin();
+		long took = System.nanoTime() - start;
+		idCacheGrowth = CacheStatsHelper.idCacheSize(client, index) - before;
+
+		logger.info("join [{}], corpus [{}], fan out [{}]: first run took {} ms, found {} documents and loaded {} bytes of id cache",
+				join, corpusSize, fanOut, TimeUnit.NANOSECONDS.toMillis(took), first.getHits().getTotalHits(), idCacheGrowth);
+	}
+
+	/**
+	 * Id cache loaded by the first search, measured once per trial in {@link JoinBenchmark#setUp(Client)}
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class IdCacheGauge extends CacheGauge {
+		private JoinBenchmark benchmark;
+
+		@Setup(Level.Trial)
+		public void setUp(JoinBenchmark benchmark) {
+			this.benchmark = benchmark;
+		}
+
+		@Override
+		protected long read() {
+			return benchmark.idCacheGrowth;
+		}
+	}
+
+	@Benchmark
+	public SearchResponse search(IdCacheGauge gauge) {
+		return runJoin();
+	}
+
+	private SearchResponse runJoin() {
+		QueryBuilder children = QueryBuilders.termQuery("brand", "heineken");
+		QueryBuilder parents = QueryBuilders.termQuery("city", "brussels");
+
+		SearchRequestBuilder request = client().prepareSearch(index);
+		if ("hasChildQuery".equals(join)) {
+			request.setQuery(QueryBuilders.hasChildQuery(BreweryCorpus.CHILD_TYPE, children));
+		} else if ("hasChildFilter".equals(join)) {
+			request.setFilter(FilterBuilders.hasChildFilter(BreweryCorpus.CHILD_TYPE, children));
+		} else if ("hasParentQuery".equals(join)) {
+			request.setQuery(QueryBuilders.hasParentQuery(BreweryCorpus.PARENT_TYPE, parents));
+		} else if ("hasParentFilter".equals(join)) {
+			request.setFilter(FilterBuilders.hasParentFilter(BreweryCorpus.PARENT_TYPE, parents));
+		} else if ("topChildren".equals(join)) {
+			request.setQuery(QueryBuilders.topChildrenQuery(BreweryCorpus.CHILD_TYPE, children)
+					.score("max")
+					.factor(5)
+					.incrementalFactor(2));
+		} else {
+			throw new IllegalArgumentException("Unknown join [" + join + "]");
+		}
+		return request.execute().actionGet();
+	}
+}
@@ -0,0 +1,93 @@
+package org.elasticsearchfr.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.ESLoggerFactory;
+import org.elasticsearch.index.query.FilterBuilders;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearchfr.tests.bean.BeerGenerator;
+import org.elasticsearchfr.tests.helper.BeerCorpus;
+import org.elasticsearchfr.tests.helper.Corpus;
+import org.elasticsearchfr.tests.helper.IndexStatsHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Beers with more than 5 hops, with ingredients mapped as nested documents or flattened in an object,
+ * for a growing number of ingredients per beer.
+ * <ul>
+ * <li>nested: the ES005 nested query and the ES006 nested filter. Name and count must match on the same ingredient.</li>
+ * <li>object: the same conditions as a bool query and filter on flattened fields. Faster, but a beer
+ * with hops and 6 of anything else matches too: compare the number of beers found.</li>
+ * </ul>
+ * The index size and the number of beers found are logged when the trial starts.
+ * <pre>
+ * java -jar target/benchmarks.jar NestedBenchmark -p corpusSize=100000 -p ingredients=1,5,20,50
+ * </pre>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class NestedBenchmark extends AbstractCorpusBenchmark {
+	protected final ESLogger logger = ESLoggerFactory.getLogger(this.getClass().getName());
+
+	@Param({"nested", "object"})
+	public String mapping;
+
+	@Param({"query", "filter"})
+	public String search;
+
+	/**
+	 * Ingredients per beer
+	 */
+	@Param({"1", "5", "20"})
+	public int ingredients;
+
+	@Override
+	protected Corpus corpus() {
+		return new BeerCorpus("meal", corpusSize, new BeerGenerator(seed).ingredients(ingredients))
+				.nested("nested".equals(mapping));
+	}
+
+	@Override
+	protected void setUp(Client client) throws Exception {
+		long size = IndexStatsHelper.primaryStoreSize(client, index);
+		logger.info("mapping [{}], ingredients [{}], corpus [{}]: index is {} bytes ({} bytes per beer), {} finds {} beers",
+				mapping, ingredients, corpusSize, size, size / Math.max(1, corpusSize),
+				search, search().getHits().getTotalHits());
+	}
+
+	@Benchmark
+	public SearchResponse search() {
+		QueryBuilder hops = QueryBuilders.boolQuery()
+				.must(QueryBuilders.matchQuery("ingredients.name", "hops"))
+				.must(QueryBuilders.rangeQuery("ingredients.count").gt(5));
+
+		if ("nested".equals(mapping)) {
+			if ("filter".equals(search)) {
+				return client().prepareSearch(index).setFilter(FilterBuilders.nestedFilter("ingredients", hops))
+						.execute().actionGet();
+			}
+			return client().prepareSearch(index).setQuery(QueryBuilders.nestedQuery("ingredients", hops).scoreMode("avg"))
+					.execute().actionGet();
+		}
+
+		if ("filter".equals(search)) {
+			return client().prepareSearch(index).setFilter(FilterBuilders.queryFilter(hops))
+					.execute().actionGet();
+		}
+		return client().prepareSearch(index).setQuery(hops).execute().actionGet();
+	}
+}
@@ -0,0 +1,50 @@
+package org.elasticsearchfr.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearchfr.tests.dsl.QueryCatalog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Run each query of {@link QueryCatalog} (the ES005 queries) on a beer corpus.
+ * <br>Throughput mode gives ops/ms, SampleTime mode gives latency percentiles for each query.
+ * <pre>
+ * java -jar target/benchmarks.jar QueryBenchmark -p corpusSize=1000000 -p query=fuzzy,wildcard
+ * </pre>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class QueryBenchmark extends AbstractCorpusBenchmark {
+
+	@Param({"matchAll", "term", "match", "queryString", "range", "boolMatchRange", "filtered",
+			"google", "googleWithBoost", "fuzzy", "multiMatch", "boosting", "ids", "customScore",
+			"customBoostFactor", "constantScore", "disMax", "field", "fuzzyLikeThis", "fuzzyLikeThisField",
+			"moreLikeThis", "moreLikeThisField", "prefix", "spanFirst", "spanNear", "spanNot", "spanOr",
+			"spanTerm", "terms", "wildcard", "customFiltersScore", "indices", "indicesAll", "indicesNone"})
+	public String query;
+
+	private QueryBuilder qb;
+
+	@Override
+	protected void setUp(Client client) throws Exception {
+		qb = QueryCatalog.query(query);
+	}
+
+	@Benchmark
+	public SearchResponse search() {
+		return client().prepareSearch(index).setQuery(qb).execute().actionGet();
+	}
+}
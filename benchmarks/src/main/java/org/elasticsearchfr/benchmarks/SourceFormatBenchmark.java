@@ -0,0 +1,119 @@
+package org.elasticsearchfr.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.ESLoggerFactory;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearchfr.tests.bean.Beer;
+import org.elasticsearchfr.tests.bean.BeerCodec;
+import org.elasticsearchfr.tests.bean.BeerCodec.Format;
+import org.elasticsearchfr.tests.bean.BeerGenerator;
+import org.elasticsearchfr.tests.helper.BeerCorpus;
+import org.elasticsearchfr.tests.helper.Corpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compare JSON and SMILE sources on the same beers.
+ * <ul>
+ * <li><code>bulk</code>: beers indexed per ms</li>
+ * <li><code>searchAndDecode</code>: hits fetched and decoded into beers per ms</li>
+ * </ul>
+ * Bytes sent per beer (bulk size) and received per hit (source size) are logged at the end of each trial.
+ * <pre>
+ * java -jar target/benchmarks.jar SourceFormatBenchmark -p corpusSize=100000 -p format=JSON,SMILE
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SourceFormatBenchmark extends AbstractCorpusBenchmark {
+	protected final ESLogger logger = ESLoggerFactory.getLogger(this.getClass().getName());
+
+	private static final int BULK_SIZE = 1000;
+	private static final int PAGE_SIZE = 100;
+
+	@Param({"JSON", "SMILE"})
+	public String format;
+
+	private Format sourceFormat;
+	private String bulkIndex;
+	private BeerGenerator generator;
+
+	private final AtomicLong ids = new AtomicLong();
+	private final AtomicLong bulkBytes = new AtomicLong();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong hitBytes = new AtomicLong();
+
+	@Override
+	protected Corpus corpus() {
+		sourceFormat = Format.valueOf(format);
+		return new BeerCorpus("meal", corpusSize, seed).format(sourceFormat);
+	}
+
+	@Override
+	protected void setUp(Client client) throws Exception {
+		generator = new BeerGenerator(seed);
+		bulkIndex = "bulk_" + format.toLowerCase();
+		client.admin().indices().prepareCreate(bulkIndex).execute().actionGet();
+		client.admin().cluster().prepareHealth(bulkIndex).setWaitForYellowStatus().execute().actionGet();
+	}
+
+	@Override
+	protected void tearDown(Client client) throws Exception {
+		logger.info("format [{}]: {} bytes sent per beer, {} bytes received per hit", format,
+				ids.get() == 0 ? 0 : bulkBytes.get() / ids.get(),
+				hits.get() == 0 ? 0 : hitBytes.get() / hits.get());
+		client.admin().indices().prepareDelete(bulkIndex).execute().actionGet();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BULK_SIZE)
+	public BulkResponse bulk() throws Exception {
+		BeerCodec codec = BeerCodec.local(sourceFormat);
+		BulkRequestBuilder bulk = client().prepareBulk();
+		long from = ids.getAndAdd(BULK_SIZE);
+		for (long id = from; id < from + BULK_SIZE; id++) {
+			bulk.add(new IndexRequest(bulkIndex, BeerCorpus.TYPE, "beer_" + id).source(codec.encode(generator.beer(id))));
+		}
+		bulkBytes.addAndGet(bulk.request().estimatedSizeInBytes());
+		return bulk.execute().actionGet();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PAGE_SIZE)
+	public Beer searchAndDecode() throws Exception {
+		SearchResponse sr = client().prepareSearch(index)
+				.setQuery(QueryBuilders.matchAllQuery())
+				.setSize(PAGE_SIZE)
+				.execute().actionGet();
+
+		BeerCodec codec = BeerCodec.local();
+		Beer beer = new Beer();
+		long bytes = 0;
+		for (SearchHit hit : sr.getHits()) {
+			bytes += hit.sourceRef().length();
+			codec.read(hit.sourceRef(), beer);
+		}
+		hits.addAndGet(sr.getHits().getHits().length);
+		hitBytes.addAndGet(bytes);
+		return beer;
+	}
+}
@@ -0,0 +1,169 @@
+package org.elasticsearchfr.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.io.FileSystemUtils;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.ESLoggerFactory;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearchfr.tests.bean.BeerCodec;
+import org.elasticsearchfr.tests.bean.BeerGenerator;
+import org.elasticsearchfr.tests.dsl.FacetCatalog;
+import org.elasticsearchfr.tests.dsl.QueryCatalog;
+import org.elasticsearchfr.tests.helper.BeerCorpus;
+import org.elasticsearchfr.tests.helper.IndexStatsHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The same ingest and search mix on each index store type. Tests and other benchmarks use the
+ * <code>memory</code> store of elasticsearch.yml: here nodes store indices in a temporary directory
+ * (<code>-Dtests.store.dir</code>, java.io.tmpdir by default) for file system stores.
+ * <ul>
+ * <li><code>bulk</code>: beers indexed per ms, in bulks of 1000</li>
+ * <li><code>search</code>: the ES005 queries and the ES007 facets, one after the other</li>
+ * </ul>
+ * Corpus indexing throughput is logged when the trial starts. Heap used, process resident memory
+ * (Linux only) and index size are logged when it ends: mmapfs files are counted in resident memory,
+ * not in the heap.
+ * <pre>
+ * java -jar target/benchmarks.jar StoreBenchmark -p corpusSize=1000000 -p storeType=memory,niofs,mmapfs,simplefs
+ * </pre>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class StoreBenchmark extends AbstractCorpusBenchmark {
+	protected final ESLogger logger = ESLoggerFactory.getLogger(this.getClass().getName());
+
+	private static final int BULK_SIZE = 1000;
+
+	@Param({"memory", "niofs", "mmapfs", "simplefs"})
+	public String storeType;
+
+	private File dataDir;
+	private String bulkIndex;
+	private BeerGenerator generator;
+
+	private final List<SearchRequest> requests = new ArrayList<SearchRequest>();
+	private final AtomicInteger next = new AtomicInteger();
+	private final AtomicLong ids = new AtomicLong();
+
+	@Override
+	protected Settings nodeSettings() {
+		dataDir = new File(System.getProperty("tests.store.dir", System.getProperty("java.io.tmpdir")),
+				"es-store-" + storeType + "-" + System.currentTimeMillis());
+		return ImmutableSettings.settingsBuilder()
+				.put("index.store.type", storeType)
+				.put("path.data", dataDir.getAbsolutePath())
+				.build();
+	}
+
+	@Override
+	protected void setUp(Client client) throws Exception {
+		logger.info("store [{}], corpus [{}]: corpus indexed in {} ms ({} beers per second)",
+				storeType, corpusSize, corpusMillis, corpusMillis == 0 ? 0 : corpusSize * 1000L / corpusMillis);
+
+		generator = new BeerGenerator(seed);
+		bulkIndex = "bulk_" + storeType;
+		client.admin().indices().prepareCreate(bulkIndex).execute().actionGet();
+		client.admin().cluster().prepareHealth(bulkIndex).setWaitForYellowStatus().execute().actionGet();
+
+		for (String name : QueryCatalog.names()) {
+			requests.add(client.prepareSearch(index).setQuery(QueryCatalog.query(name)).request());
+		}
+		for (String name : FacetCatalog.names()) {
+			requests.add(client.prepareSearch(index)
+					.setQuery(QueryBuilders.matchAllQuery())
+					.setSize(0)
+					.addFacet(FacetCatalog.facet(name))
+					.request());
+		}
+	}
+
+	@Override
+	protected void tearDown(Client client) throws Exception {
+		System.gc();
+		long heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+		logger.info("store [{}], corpus [{}]: heap used {} MB, resident memory {} MB, corpus index {} MB, {} beers bulk indexed",
+				storeType, corpusSize, heap >> 20, residentMemory() >> 20,
+				IndexStatsHelper.primaryStoreSize(client, index) >> 20, ids.get());
+		client.admin().indices().prepareDelete(bulkIndex).execute().actionGet();
+	}
+
+	@Override
+	public void tearDownCorpus() throws Exception {
+		super.tearDownCorpus();
+		FileSystemUtils.deleteRecursively(dataDir, true);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BULK_SIZE)
+	public BulkResponse bulk() throws Exception {
+		BeerCodec codec = BeerCodec.local();
+		BulkRequestBuilder bulk = client().prepareBulk();
+		long from = ids.getAndAdd(BULK_SIZE);
+		for (long id = from; id < from + BULK_SIZE; id++) {
+			bulk.add(new IndexRequest(bulkIndex, BeerCorpus.TYPE, "beer_" + id).source(codec.encode(generator.beer(id))));
+		}
+		return bulk.execute().actionGet();
+	}
+
+	@Benchmark
+	public SearchResponse search() {
+		SearchRequest request = requests.get(Math.abs(next.getAndIncrement() % requests.size()));
+		return client().search(request).actionGet();
+	}
+
+	/**
+	 * @return VmRSS of /proc/self/status in bytes, -1 if unknown (not Linux)
+	 */
+	private static long residentMemory() {
+		File status = new File("/proc/self/status");
+		if (!status.exists()) {
+			return -1;
+		}
+		try {
+			BufferedReader reader = new BufferedReader(new FileReader(status));
+			try {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (line.startsWith("VmRSS:")) {
+						// VmRSS:    123456 kB
+						return Long.parseLong(line.substring("VmRSS:".length()).replace("kB", "").trim()) * 1024;
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		} catch (Exception e) {
+			// We only log memory
+		}
+		return -1;
+	}
+}
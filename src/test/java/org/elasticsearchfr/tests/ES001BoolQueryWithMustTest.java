@@ -22,11 +22,11 @@ public class ES001BoolQueryWithMustTest extends TestNodeHelper {
 	 */
 	@Test
 	public void createSuggest() throws Exception {
-		node.client().prepareIndex("es001index", "type1").setSource("{\"email\" : \"abc@otherdomain.com\", \"firstname\" : \"abc\"}").execute().actionGet();
-		node.client().prepareIndex("es001index", "type1").setSource("{\"email\" : \"abc@gmail.com\", \"firstname\" : \"abc\"}").execute().actionGet();
-		node.client().prepareIndex("es001index", "type1").setSource("{\"email\" : \"xyz@gmail.com\", \"firstname\" : \"xyz\"}").execute().actionGet();
+		client().prepareIndex(index("es001index"), "type1").setSource("{\"email\" : \"abc@otherdomain.com\", \"firstname\" : \"abc\"}").execute().actionGet();
+		client().prepareIndex(index("es001index"), "type1").setSource("{\"email\" : \"abc@gmail.com\", \"firstname\" : \"abc\"}").execute().actionGet();
+		client().prepareIndex(index("es001index"), "type1").setSource("{\"email\" : \"xyz@gmail.com\", \"firstname\" : \"xyz\"}").execute().actionGet();
 		
-		node.client().admin().indices().prepareRefresh().execute().actionGet();
+		client().admin().indices().prepareRefresh(index("es001index")).execute().actionGet();
 
 		QueryBuilder qb = QueryBuilders
 				.boolQuery()
@@ -35,7 +35,7 @@ public class ES001BoolQueryWithMustTest extends TestNodeHelper {
 
 		logger.info("Your query is : {}", qb);
 
-		SearchResponse sr = node.client().prepareSearch().setQuery(qb)
+		SearchResponse sr = client().prepareSearch(index("es001index")).setQuery(qb)
 				.execute().actionGet();
 
 		logger.info("Result is {}", sr.toString());
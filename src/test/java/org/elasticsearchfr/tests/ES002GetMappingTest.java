@@ -20,11 +20,11 @@ public class ES002GetMappingTest extends TestNodeHelper {
 	 */
 	@Test
 	public void getMapping() throws Exception {
-		node.client().prepareIndex("es002index", "type1").setSource("{\"email\" : \"abc@otherdomain.com\", \"firstname\" : \"abc\"}").execute().actionGet();
-		node.client().admin().cluster().prepareHealth().setWaitForYellowStatus().execute().actionGet();
-		node.client().admin().indices().prepareRefresh().execute().actionGet();
+		client().prepareIndex(index("es002index"), "type1").setSource("{\"email\" : \"abc@otherdomain.com\", \"firstname\" : \"abc\"}").execute().actionGet();
+		client().admin().cluster().prepareHealth().setWaitForYellowStatus().execute().actionGet();
+		client().admin().indices().prepareRefresh(index("es002index")).execute().actionGet();
 
-		MappingMetaData md = node.client().admin().cluster().prepareState().execute().actionGet().getState().metaData().index("es002index").mapping("type1");
+		MappingMetaData md = client().admin().cluster().prepareState().execute().actionGet().getState().metaData().index(index("es002index")).mapping("type1");
 
 		Assert.assertNotNull(md);
 		Assert.assertNotNull(md.source());
@@ -25,23 +25,23 @@ public class ES003PutMappingNotAnalyzedTest extends TestNodeHelper {
 	 */
 	@Test
 	public void putMappingWithNotAnalyzed() throws Exception {
-        node.client().admin().indices().prepareCreate("es003index").execute().actionGet();
+        client().admin().indices().prepareCreate(index("es003index")).execute().actionGet();
 
         XContentBuilder xbMapping = buildMapping();
         logger.info("Mapping is : {}", xbMapping.string());
 
-        PutMappingResponse response = node.client().admin().indices()
-            .preparePutMapping("es003index")
+        PutMappingResponse response = client().admin().indices()
+            .preparePutMapping(index("es003index"))
             .setType("type1")
             .setSource(xbMapping)
             .execute().actionGet();
         if (!response.isAcknowledged()) {
             throw new Exception("Could not define mapping.");
         }
-        node.client().admin().cluster().prepareHealth().setWaitForYellowStatus().execute().actionGet();
+        client().admin().cluster().prepareHealth().setWaitForYellowStatus().execute().actionGet();
 
-        node.client().prepareIndex("es003index", "type1").setSource("{\"analyzed\" : \"Abc Def\", \"notanalyzed\" : \"Abc Def\"}").execute().actionGet();
-		node.client().admin().indices().prepareRefresh().execute().actionGet();
+        client().prepareIndex(index("es003index"), "type1").setSource("{\"analyzed\" : \"Abc Def\", \"notanalyzed\" : \"Abc Def\"}").execute().actionGet();
+		client().admin().indices().prepareRefresh(index("es003index")).execute().actionGet();
 
         searchTerm("analyzed","abc",1L);
         searchTerm("analyzed","Abc Def",0L);
@@ -50,7 +50,7 @@ public class ES003PutMappingNotAnalyzedTest extends TestNodeHelper {
 	}
 
     private void searchTerm(String fieldname, String value, Long expected) {
-        SearchResponse sr = node.client().prepareSearch("es003index").setQuery(QueryBuilders.termQuery(fieldname,value)).execute().actionGet();
+        SearchResponse sr = client().prepareSearch(index("es003index")).setQuery(QueryBuilders.termQuery(fieldname,value)).execute().actionGet();
         Assert.assertNotNull(sr);
         Assert.assertEquals(expected, (Long) sr.getHits().totalHits());
     }
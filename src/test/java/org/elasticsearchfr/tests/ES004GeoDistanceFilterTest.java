@@ -27,25 +27,25 @@ public class ES004GeoDistanceFilterTest extends TestNodeHelper {
 	 */
 	@Test
 	public void putMappingWithNotAnalyzed() throws Exception {
-        node.client().admin().indices().prepareCreate("es004index").execute().actionGet();
+        client().admin().indices().prepareCreate(index("es004index")).execute().actionGet();
 
         XContentBuilder xbMapping = buildMapping();
         logger.info("Mapping is : {}", xbMapping.string());
 
-        PutMappingResponse response = node.client().admin().indices()
-            .preparePutMapping("es004index")
+        PutMappingResponse response = client().admin().indices()
+            .preparePutMapping(index("es004index"))
             .setType("type1")
             .setSource(xbMapping)
             .execute().actionGet();
         if (!response.isAcknowledged()) {
             throw new Exception("Could not define mapping.");
         }
-        node.client().admin().cluster().prepareHealth().setWaitForYellowStatus().execute().actionGet();
+        client().admin().cluster().prepareHealth().setWaitForYellowStatus().execute().actionGet();
 
-        node.client().prepareIndex("es004index", "type1").setSource("{\"location\" : { \"lat\" : 5, \"lon\" : 5 }}").execute().actionGet();
-		node.client().admin().indices().prepareRefresh().execute().actionGet();
+        client().prepareIndex(index("es004index"), "type1").setSource("{\"location\" : { \"lat\" : 5, \"lon\" : 5 }}").execute().actionGet();
+		client().admin().indices().prepareRefresh(index("es004index")).execute().actionGet();
 
-        SearchRequestBuilder srb = node.client().prepareSearch("es004index").setTypes("type1")
+        SearchRequestBuilder srb = client().prepareSearch(index("es004index")).setTypes("type1")
                 .setQuery(QueryBuilders.matchAllQuery())
                 .setFilter(FilterBuilders.geoDistanceFilter("location").distance("0.5km").point(5, 5));
         SearchResponse sr = srb.execute().actionGet();
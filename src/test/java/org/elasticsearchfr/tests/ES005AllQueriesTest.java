@@ -1,13 +1,8 @@
 package org.elasticsearchfr.tests;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.spatial4j.core.context.SpatialContext;
 import com.spatial4j.core.shape.impl.PointImpl;
 import com.spatial4j.core.shape.impl.RectangleImpl;
-import org.elasticsearch.ElasticSearchException;
-import org.elasticsearch.action.bulk.BulkRequestBuilder;
-import org.elasticsearch.action.bulk.BulkResponse;
-import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.search.MultiSearchResponse;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
@@ -20,10 +15,11 @@ import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearchfr.tests.bean.Beer;
-import org.elasticsearchfr.tests.bean.BeerHelper;
+import org.elasticsearchfr.tests.bean.BeerHits;
 import org.elasticsearchfr.tests.bean.Colour;
+import org.elasticsearchfr.tests.helper.BreweryCorpus;
+import org.elasticsearchfr.tests.helper.ShapeCorpus;
 import org.elasticsearchfr.tests.helper.TestNodeHelper;
-import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -37,54 +33,17 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 	protected final ESLogger logger = ESLoggerFactory.getLogger(this.getClass().getName());
 
     /**
-     * When we start a test, we index 1000 beers with random data
+     * Tests share the same read-only corpus of beers, built once for all tests
      * @throws Exception
      */
     @Before
     public void setUp() throws Exception {
-        ObjectMapper mapper = new ObjectMapper();
-
-        try {
-            // Let's delete old index if any
-            node.client().admin().indices().prepareDelete("meal").execute().actionGet();
-            node.client().admin().cluster().prepareHealth().setWaitForYellowStatus().execute().actionGet();
-        } catch (ElasticSearchException e) {
-
-        }
-
-        BulkRequestBuilder brb = node.client().prepareBulk();
-
-        for (int i = 0; i < 1000; i++) {
-            Beer beer = BeerHelper.generate();
-            IndexRequest irq = new IndexRequest("meal", "beer", "beer_" + i);
-            String jsonString = mapper.writeValueAsString(beer);
-            irq.source(jsonString);
-            brb.add(irq);
-        }
-
-        BulkResponse br = brb.execute().actionGet();
-        Assert.assertFalse(br.hasFailures());
-
-        node.client().admin().indices().prepareRefresh().execute().actionGet();
-    }
-
-    /**
-     * When we stop a test, we remove all data
-     */
-    @After
-    public void tearDown() {
-        try {
-            // Let's delete old index if any
-            node.client().admin().indices().prepareDelete("meal").execute().actionGet();
-            node.client().admin().cluster().prepareHealth().setWaitForYellowStatus().execute().actionGet();
-        } catch (ElasticSearchException e) {
-
-        }
+        readOnlyCorpus(MEAL);
     }
 
     /**
      * We want to build a matchAll Query
-     * <br>We should have 1000 results
+     * <br>We should have all the corpus beers as results
      * <br>We want to display the _source content of the first Hit.
      * @throws Exception
      * <br>See <a href="http://www.elasticsearch.org/guide/reference/java-api/query-dsl.html">documentation</a>
@@ -96,15 +55,18 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         logger.info("Your query is : {}", qb);
 
-        SearchResponse sr = node.client().prepareSearch("meal")
+        SearchResponse sr = client().prepareSearch("meal")
                 .setQuery(qb).execute().actionGet();
 
         Assert.assertNotNull(sr);
         Assert.assertNotNull(sr.getHits());
-        Assert.assertEquals(1000, sr.getHits().getTotalHits());
+        Assert.assertEquals(MEAL.getSize(), sr.getHits().getTotalHits());
 
         String jsonFirstHit = sr.getHits().getHits()[0].getSourceAsString();
         logger.info("Your first is : {}", jsonFirstHit);
+
+        Beer beer = BeerHits.toBeer(sr.getHits().getAt(0));
+        Assert.assertNotNull(beer.getBrand());
     }
 
     /**
@@ -120,7 +82,7 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         logger.info("Your query is : {}", qb);
 
-        SearchResponse sr = node.client().prepareSearch("meal")
+        SearchResponse sr = client().prepareSearch("meal")
                 .setQuery(qb)
                 .execute().actionGet();
 
@@ -145,7 +107,7 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         logger.info("Your query is : {}", qb);
 
-        SearchResponse sr = node.client().prepareSearch("meal")
+        SearchResponse sr = client().prepareSearch("meal")
                 .setQuery(qb)
                 .execute().actionGet();
 
@@ -172,7 +134,7 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         logger.info("Your query is : {}", qb);
 
-        SearchResponse sr = node.client().prepareSearch("meal")
+        SearchResponse sr = client().prepareSearch("meal")
                 .setQuery(qb).execute()
                 .actionGet();
 
@@ -198,7 +160,7 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         logger.info("Your query is : {}", qb);
 
-        SearchResponse sr = node.client().prepareSearch("meal")
+        SearchResponse sr = client().prepareSearch("meal")
                 .setQuery(qb)
                 .execute().actionGet();
 
@@ -235,7 +197,7 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         logger.info("Your query is : {}", qb);
 
-        SearchResponse sr = node.client().prepareSearch("meal").setQuery(qb)
+        SearchResponse sr = client().prepareSearch("meal").setQuery(qb)
                 .execute().actionGet();
 
         Assert.assertNotNull(sr);
@@ -244,8 +206,9 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         logger.info("We found {} beers", sr.getHits().totalHits());
 
+        Beer beer = new Beer();
         for (SearchHit hit : sr.getHits()) {
-            Beer beer = BeerHelper.toBeer(hit.getSourceAsString());
+            BeerHits.toBeer(hit, beer);
             Assert.assertEquals("Heineken", beer.getBrand());
             Assert.assertTrue(beer.getPrice()>5 && beer.getPrice()<10);
         }
@@ -277,7 +240,7 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         logger.info("Your query is : {}", qb);
 
-        SearchResponse sr = node.client().prepareSearch("meal").setQuery(qb)
+        SearchResponse sr = client().prepareSearch("meal").setQuery(qb)
                 .execute().actionGet();
 
         Assert.assertNotNull(sr);
@@ -286,8 +249,9 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         logger.info("We found {} beers", sr.getHits().totalHits());
 
+        Beer beer = new Beer();
         for (SearchHit hit : sr.getHits()) {
-            Beer beer = BeerHelper.toBeer(hit.getSourceAsString());
+            BeerHits.toBeer(hit, beer);
             Assert.assertEquals("Heineken", beer.getBrand());
             Assert.assertTrue(beer.getPrice()>5 && beer.getPrice()<10);
             Assert.assertTrue(beer.getSize()>1);
@@ -311,7 +275,7 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         logger.info("Your query is : {}", qb);
 
-        SearchResponse sr = node.client().prepareSearch("meal").setQuery(qb)
+        SearchResponse sr = client().prepareSearch("meal").setQuery(qb)
                 .setSize(100)
                 .execute().actionGet();
 
@@ -323,8 +287,9 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         int nbHeineken = 0;
         int nbPale = 0;
+        Beer beer = new Beer();
         for (SearchHit hit : sr.getHits()) {
-            Beer beer = BeerHelper.toBeer(hit.getSourceAsString());
+            BeerHits.toBeer(hit, beer);
 
             if ("Heineken".equals(beer.getBrand())) nbHeineken++;
             if (Colour.PALE.equals(beer.getColour())) nbPale++;
@@ -354,7 +319,7 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         logger.info("Your query is : {}", qb);
 
-        SearchResponse sr = node.client().prepareSearch("meal").setQuery(qb)
+        SearchResponse sr = client().prepareSearch("meal").setQuery(qb)
                 .setSize(100)
                 .addHighlightedField("brand")
                 .addHighlightedField("colour")
@@ -368,8 +333,9 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         int nbHeineken = 0;
         int nbPale = 0;
+        Beer beer = new Beer();
         for (SearchHit hit : sr.getHits()) {
-            Beer beer = BeerHelper.toBeer(hit.getSourceAsString());
+            BeerHits.toBeer(hit, beer);
 
             if ("Heineken".equals(beer.getBrand())) nbHeineken++;
             if (Colour.PALE.equals(beer.getColour())) nbPale++;
@@ -393,12 +359,12 @@ public class ES005AllQueriesTest extends TestNodeHelper {
      */
     @Test
     public void multi_Search() throws Exception {
-        SearchRequestBuilder srb1 = node.client().prepareSearch("meal").setQuery(QueryBuilders.queryString("pale")).setSize(1);
+        SearchRequestBuilder srb1 = client().prepareSearch("meal").setQuery(QueryBuilders.queryString("pale")).setSize(1);
         logger.info("Your 1st query is : {}", srb1);
-        SearchRequestBuilder srb2 = node.client().prepareSearch("meal").setQuery(QueryBuilders.matchQuery("brand", "HEINEKEN")).setSize(1);
+        SearchRequestBuilder srb2 = client().prepareSearch("meal").setQuery(QueryBuilders.matchQuery("brand", "HEINEKEN")).setSize(1);
         logger.info("Your 2nd query is : {}", srb2);
 
-        MultiSearchResponse sr = node.client().prepareMultiSearch()
+        MultiSearchResponse sr = client().prepareMultiSearch()
                 .add(srb1)
                 .add(srb2)
                 .execute().actionGet();
@@ -435,7 +401,7 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         // Execute the query
         SearchResponse sr = null;
-        sr = node.client().prepareSearch("meal").setQuery(qb).execute().actionGet();
+        sr = client().prepareSearch("meal").setQuery(qb).execute().actionGet();
 
         Assert.assertNotNull(sr);
         Assert.assertNotNull(sr.getHits());
@@ -461,7 +427,7 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         // Execute the query
         SearchResponse sr = null;
-        sr = node.client().prepareSearch("meal").setQuery(qb).execute().actionGet();
+        sr = client().prepareSearch("meal").setQuery(qb).execute().actionGet();
 
         Assert.assertNotNull(sr);
         Assert.assertNotNull(sr.getHits());
@@ -490,7 +456,7 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         // Execute the query
         SearchResponse sr = null;
-        sr = node.client().prepareSearch("meal").setQuery(qb).execute().actionGet();
+        sr = client().prepareSearch("meal").setQuery(qb).execute().actionGet();
 
         Assert.assertNotNull(sr);
         Assert.assertNotNull(sr.getHits());
@@ -516,7 +482,7 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         // Execute the query
         SearchResponse sr = null;
-        sr = node.client().prepareSearch("meal").setQuery(qb).execute().actionGet();
+        sr = client().prepareSearch("meal").setQuery(qb).execute().actionGet();
 
         Assert.assertNotNull(sr);
         Assert.assertNotNull(sr.getHits());
@@ -546,7 +512,7 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         // Execute the query
         SearchResponse sr = null;
-        sr = node.client().prepareSearch("meal").setQuery(qb).execute().actionGet();
+        sr = client().prepareSearch("meal").setQuery(qb).execute().actionGet();
 
         Assert.assertNotNull(sr);
         Assert.assertNotNull(sr.getHits());
@@ -572,7 +538,7 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         // Execute the query
         SearchResponse sr = null;
-        sr = node.client().prepareSearch("meal").setQuery(qb).execute().actionGet();
+        sr = client().prepareSearch("meal").setQuery(qb).execute().actionGet();
 
         Assert.assertNotNull(sr);
         Assert.assertNotNull(sr.getHits());
@@ -599,7 +565,7 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         // Execute the query
         SearchResponse sr = null;
-        sr = node.client().prepareSearch("meal").setQuery(qb).execute().actionGet();
+        sr = client().prepareSearch("meal").setQuery(qb).execute().actionGet();
 
         Assert.assertNotNull(sr);
         Assert.assertNotNull(sr.getHits());
@@ -629,7 +595,7 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         // Execute the query
         SearchResponse sr = null;
-        sr = node.client().prepareSearch("meal").setQuery(qb).execute().actionGet();
+        sr = client().prepareSearch("meal").setQuery(qb).execute().actionGet();
 
         Assert.assertNotNull(sr);
         Assert.assertNotNull(sr.getHits());
@@ -655,7 +621,7 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         // Execute the query
         SearchResponse sr = null;
-        sr = node.client().prepareSearch("meal").setQuery(qb).execute().actionGet();
+        sr = client().prepareSearch("meal").setQuery(qb).execute().actionGet();
 
         Assert.assertNotNull(sr);
         Assert.assertNotNull(sr.getHits());
@@ -683,7 +649,7 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         // Execute the query
         SearchResponse sr = null;
-        sr = node.client().prepareSearch("meal").setQuery(qb).execute().actionGet();
+        sr = client().prepareSearch("meal").setQuery(qb).execute().actionGet();
 
         Assert.assertNotNull(sr);
         Assert.assertNotNull(sr.getHits());
@@ -711,7 +677,7 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         // Execute the query
         SearchResponse sr = null;
-        sr = node.client().prepareSearch("meal").setQuery(qb).execute().actionGet();
+        sr = client().prepareSearch("meal").setQuery(qb).execute().actionGet();
 
         Assert.assertNotNull(sr);
         Assert.assertNotNull(sr.getHits());
@@ -731,21 +697,20 @@ public class ES005AllQueriesTest extends TestNodeHelper {
     public void hasChildSearch() throws Exception {
         QueryBuilder qb = null;
         // create the query
-        qb = QueryBuilders.hasChildQuery("blog_tag",
-                QueryBuilders.termQuery("tag", "something"));
+        qb = QueryBuilders.hasChildQuery(BreweryCorpus.CHILD_TYPE,
+                QueryBuilders.termQuery("brand", "heineken"));
 
         logger.info("Your query is : {}", qb);
 
-        // TODO Create a test here
         // Execute the query
-        /*SearchResponse sr = null;
-        sr = node.client().prepareSearch("meal").setQuery(qb).execute().actionGet();
+        SearchResponse sr = null;
+        sr = client().prepareSearch(readOnlyCorpus(BREWERIES)).setQuery(qb).execute().actionGet();
 
         Assert.assertNotNull(sr);
         Assert.assertNotNull(sr.getHits());
         Assert.assertTrue(sr.getHits().getTotalHits() > 0);
 
-        logger.info("We found {} beers", sr.getHits().totalHits());*/
+        logger.info("We found {} breweries", sr.getHits().totalHits());
     }
 
     /**
@@ -759,21 +724,20 @@ public class ES005AllQueriesTest extends TestNodeHelper {
     public void hasParentSearch() throws Exception {
         QueryBuilder qb = null;
         // create the query
-        qb = QueryBuilders.hasParentQuery("blog",
-                QueryBuilders.termQuery("tag", "something"));
+        qb = QueryBuilders.hasParentQuery(BreweryCorpus.PARENT_TYPE,
+                QueryBuilders.termQuery("city", "brussels"));
 
         logger.info("Your query is : {}", qb);
 
-        // TODO Create a test here
         // Execute the query
-        /*SearchResponse sr = null;
-        sr = node.client().prepareSearch("meal").setQuery(qb).execute().actionGet();
+        SearchResponse sr = null;
+        sr = client().prepareSearch(readOnlyCorpus(BREWERIES)).setQuery(qb).execute().actionGet();
 
         Assert.assertNotNull(sr);
         Assert.assertNotNull(sr.getHits());
         Assert.assertTrue(sr.getHits().getTotalHits() > 0);
 
-        logger.info("We found {} beers", sr.getHits().totalHits());*/
+        logger.info("We found {} beers", sr.getHits().totalHits());
     }
 
     /**
@@ -796,7 +760,7 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         // Execute the query
         SearchResponse sr = null;
-        sr = node.client().prepareSearch("meal").setQuery(qb).execute().actionGet();
+        sr = client().prepareSearch("meal").setQuery(qb).execute().actionGet();
 
         Assert.assertNotNull(sr);
         Assert.assertNotNull(sr.getHits());
@@ -825,7 +789,7 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         // Execute the query
         SearchResponse sr = null;
-        sr = node.client().prepareSearch("meal").setQuery(qb).execute().actionGet();
+        sr = client().prepareSearch("meal").setQuery(qb).execute().actionGet();
 
         Assert.assertNotNull(sr);
         Assert.assertNotNull(sr.getHits());
@@ -851,7 +815,7 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         // Execute the query
         SearchResponse sr = null;
-        sr = node.client().prepareSearch("meal").setQuery(qb).execute().actionGet();
+        sr = client().prepareSearch("meal").setQuery(qb).execute().actionGet();
 
         Assert.assertNotNull(sr);
         Assert.assertNotNull(sr.getHits());
@@ -880,7 +844,7 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         // Execute the query
         SearchResponse sr = null;
-        sr = node.client().prepareSearch("meal").setQuery(qb).execute().actionGet();
+        sr = client().prepareSearch("meal").setQuery(qb).execute().actionGet();
 
         Assert.assertNotNull(sr);
         Assert.assertNotNull(sr.getHits());
@@ -912,7 +876,7 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         // Execute the query
         SearchResponse sr = null;
-        sr = node.client().prepareSearch("meal").setQuery(qb).execute().actionGet();
+        sr = client().prepareSearch("meal").setQuery(qb).execute().actionGet();
 
         Assert.assertNotNull(sr);
         Assert.assertNotNull(sr.getHits());
@@ -940,7 +904,7 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         // Execute the query
         SearchResponse sr = null;
-        sr = node.client().prepareSearch("meal").setQuery(qb).execute().actionGet();
+        sr = client().prepareSearch("meal").setQuery(qb).execute().actionGet();
 
         Assert.assertNotNull(sr);
         Assert.assertNotNull(sr.getHits());
@@ -969,7 +933,7 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         // Execute the query
         SearchResponse sr = null;
-        sr = node.client().prepareSearch("meal").setQuery(qb).execute().actionGet();
+        sr = client().prepareSearch("meal").setQuery(qb).execute().actionGet();
 
         Assert.assertNotNull(sr);
         Assert.assertNotNull(sr.getHits());
@@ -995,7 +959,7 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         // Execute the query
         SearchResponse sr = null;
-        sr = node.client().prepareSearch("meal").setQuery(qb).execute().actionGet();
+        sr = client().prepareSearch("meal").setQuery(qb).execute().actionGet();
 
         Assert.assertNotNull(sr);
         Assert.assertNotNull(sr.getHits());
@@ -1023,7 +987,7 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         // Execute the query
         SearchResponse sr = null;
-        sr = node.client().prepareSearch("meal").setQuery(qb).execute().actionGet();
+        sr = client().prepareSearch("meal").setQuery(qb).execute().actionGet();
 
         Assert.assertNotNull(sr);
         Assert.assertNotNull(sr.getHits());
@@ -1043,26 +1007,23 @@ public class ES005AllQueriesTest extends TestNodeHelper {
     public void topChildrenSearch() throws Exception {
         QueryBuilder qb = null;
         // create the query
-        qb = QueryBuilders.topChildrenQuery("blog_tag",
-                QueryBuilders.termQuery("tag", "something"))
+        qb = QueryBuilders.topChildrenQuery(BreweryCorpus.CHILD_TYPE,
+                QueryBuilders.termQuery("brand", "heineken"))
                 .score("max")
                 .factor(5)
                 .incrementalFactor(2);
 
         logger.info("Your query is : {}", qb);
 
-        // TODO Create a test here
         // Execute the query
-        /*
         SearchResponse sr = null;
-        sr = node.client().prepareSearch("meal").setQuery(qb).execute().actionGet();
+        sr = client().prepareSearch(readOnlyCorpus(BREWERIES)).setQuery(qb).execute().actionGet();
 
         Assert.assertNotNull(sr);
         Assert.assertNotNull(sr.getHits());
         Assert.assertTrue(sr.getHits().getTotalHits() > 0);
 
-        logger.info("We found {} beers", sr.getHits().totalHits());
-        */
+        logger.info("We found {} breweries", sr.getHits().totalHits());
     }
 
     /**
@@ -1082,7 +1043,7 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         // Execute the query
         SearchResponse sr = null;
-        sr = node.client().prepareSearch("meal").setQuery(qb).execute().actionGet();
+        sr = client().prepareSearch("meal").setQuery(qb).execute().actionGet();
 
         Assert.assertNotNull(sr);
         Assert.assertNotNull(sr.getHits());
@@ -1102,27 +1063,24 @@ public class ES005AllQueriesTest extends TestNodeHelper {
     public void nestedSearch() throws Exception {
         QueryBuilder qb = null;
         // create the query
-        qb = QueryBuilders.nestedQuery("obj1",
+        qb = QueryBuilders.nestedQuery("ingredients",
                 QueryBuilders.boolQuery()
-                        .must(QueryBuilders.matchQuery("obj1.name", "blue"))
-                        .must(QueryBuilders.rangeQuery("obj1.count").gt(5))
+                        .must(QueryBuilders.matchQuery("ingredients.name", "hops"))
+                        .must(QueryBuilders.rangeQuery("ingredients.count").gt(5))
             )
             .scoreMode("avg");
 
         logger.info("Your query is : {}", qb);
 
-        // TODO Create an example
-        /*
         // Execute the query
         SearchResponse sr = null;
-        sr = node.client().prepareSearch("meal").setQuery(qb).execute().actionGet();
+        sr = client().prepareSearch("meal").setQuery(qb).execute().actionGet();
 
         Assert.assertNotNull(sr);
         Assert.assertNotNull(sr.getHits());
         Assert.assertTrue(sr.getHits().getTotalHits() > 0);
 
         logger.info("We found {} beers", sr.getHits().totalHits());
-        */
     }
 
     /**
@@ -1146,7 +1104,7 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         // Execute the query
         SearchResponse sr = null;
-        sr = node.client().prepareSearch("meal").setQuery(qb).execute().actionGet();
+        sr = client().prepareSearch("meal").setQuery(qb).execute().actionGet();
 
         Assert.assertNotNull(sr);
         Assert.assertNotNull(sr.getHits());
@@ -1177,7 +1135,7 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         // Execute the query
         SearchResponse sr = null;
-        sr = node.client().prepareSearch("meal").setQuery(qb).execute().actionGet();
+        sr = client().prepareSearch("meal").setQuery(qb).execute().actionGet();
 
         Assert.assertNotNull(sr);
         Assert.assertNotNull(sr.getHits());
@@ -1208,7 +1166,7 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         // Execute the query
         SearchResponse sr = null;
-        sr = node.client().prepareSearch("meal").setQuery(qb).execute().actionGet();
+        sr = client().prepareSearch("meal").setQuery(qb).execute().actionGet();
 
         Assert.assertNotNull(sr);
         Assert.assertNotNull(sr.getHits());
@@ -1238,7 +1196,7 @@ public class ES005AllQueriesTest extends TestNodeHelper {
 
         // Execute the query
         SearchResponse sr = null;
-        sr = node.client().prepareSearch("meal").setQuery(qb).execute().actionGet();
+        sr = client().prepareSearch("meal").setQuery(qb).execute().actionGet();
 
         Assert.assertNotNull(sr);
         Assert.assertNotNull(sr.getHits());
@@ -1256,33 +1214,36 @@ public class ES005AllQueriesTest extends TestNodeHelper {
      */
     @Test
     public void geoShapeSearch() throws Exception {
+        String shapes = readOnlyCorpus(SHAPES);
         QueryBuilder qb = null;
         // create the query
-        qb = QueryBuilders.geoShapeQuery("location",
-                new RectangleImpl(0, 10, 0, 10,SpatialContext.GEO))
+        qb = QueryBuilders.geoShapeQuery(ShapeCorpus.FIELD,
+                new RectangleImpl(-30, 60, 20, 70, SpatialContext.GEO))
             .relation(ShapeRelation.WITHIN);
-        logger.info("Your query is : {}", qb);
+        Assert.assertTrue(launchShapeSearch(shapes, qb).getHits().getTotalHits() > 0);
 
-        qb = QueryBuilders.geoShapeQuery("location",
-                new PointImpl(0, 0, SpatialContext.GEO))
+        double[] centre = SHAPES.centre(0);
+        qb = QueryBuilders.geoShapeQuery(ShapeCorpus.FIELD,
+                new PointImpl(centre[0], centre[1], SpatialContext.GEO))
                 .relation(ShapeRelation.INTERSECTS);
-        logger.info("Your query is : {}", qb);
+        Assert.assertTrue(launchShapeSearch(shapes, qb).getHits().getTotalHits() > 0);
 
-        qb = QueryBuilders.geoShapeQuery("location", "New Zealand", "countries")
+        qb = QueryBuilders.geoShapeQuery(ShapeCorpus.FIELD, "New Zealand", ShapeCorpus.COUNTRIES)
                 .relation(ShapeRelation.DISJOINT);
+        Assert.assertTrue(launchShapeSearch(shapes, qb).getHits().getTotalHits() > 0);
+    }
+
+    private SearchResponse launchShapeSearch(String shapes, QueryBuilder qb) {
         logger.info("Your query is : {}", qb);
 
-        // TODO Create examples
-        /*
         // Execute the query
         SearchResponse sr = null;
-        sr = node.client().prepareSearch("meal").setQuery(qb).execute().actionGet();
+        sr = client().prepareSearch(shapes).setTypes(ShapeCorpus.TYPE).setQuery(qb).execute().actionGet();
 
         Assert.assertNotNull(sr);
         Assert.assertNotNull(sr.getHits());
-        Assert.assertTrue(sr.getHits().getTotalHits() == 0);
 
-        logger.info("We found {} beers", sr.getHits().totalHits());
-        */
+        logger.info("We found {} shapes", sr.getHits().totalHits());
+        return sr;
     }
 }
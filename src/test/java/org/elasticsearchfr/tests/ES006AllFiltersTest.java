@@ -1,13 +1,8 @@
 package org.elasticsearchfr.tests;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.spatial4j.core.context.SpatialContext;
 import com.spatial4j.core.shape.impl.PointImpl;
 import com.spatial4j.core.shape.impl.RectangleImpl;
-import org.elasticsearch.action.bulk.BulkRequestBuilder;
-import org.elasticsearch.action.bulk.BulkResponse;
-import org.elasticsearch.action.delete.DeleteRequest;
-import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.common.geo.GeoDistance;
 import org.elasticsearch.common.geo.ShapeRelation;
@@ -17,8 +12,8 @@ import org.elasticsearch.common.unit.DistanceUnit;
 import org.elasticsearch.index.query.FilterBuilder;
 import org.elasticsearch.index.query.FilterBuilders;
 import org.elasticsearch.index.query.QueryBuilders;
-import org.elasticsearchfr.tests.bean.Beer;
-import org.elasticsearchfr.tests.bean.BeerHelper;
+import org.elasticsearchfr.tests.helper.BreweryCorpus;
+import org.elasticsearchfr.tests.helper.ShapeCorpus;
 import org.elasticsearchfr.tests.helper.TestNodeHelper;
 import org.junit.*;
 
@@ -31,43 +26,12 @@ public class ES006AllFiltersTest extends TestNodeHelper {
 	protected final ESLogger logger = ESLoggerFactory.getLogger(this.getClass().getName());
 
     /**
-     * When we start a test, we index 1000 beers with random data
+     * Tests share the same read-only corpus of beers, built once for all tests
      * @throws Exception
      */
     @Before
     public void setUp() throws Exception {
-        ObjectMapper mapper = new ObjectMapper();
-
-        BulkRequestBuilder brb = node.client().prepareBulk();
-
-        for (int i = 0; i < 1000; i++) {
-            Beer beer = BeerHelper.generate();
-            IndexRequest irq = new IndexRequest("meal", "beer", "beer_" + i);
-            String jsonString = mapper.writeValueAsString(beer);
-            irq.source(jsonString);
-            brb.add(irq);
-        }
-
-        BulkResponse br = brb.execute().actionGet();
-        Assert.assertFalse(br.hasFailures());
-
-        node.client().admin().indices().prepareRefresh().execute().actionGet();
-    }
-
-    /**
-     * When we stop a test, we remove all data
-     */
-    @After
-    public void tearDown() {
-        BulkRequestBuilder brb = node.client().prepareBulk();
-
-        for (int i = 0; i < 1000; i++) {
-            DeleteRequest dr = new DeleteRequest("meal", "beer", "beer_" + i);
-            brb.add(dr);
-        }
-
-        BulkResponse br = brb.execute().actionGet();
-        Assert.assertFalse(br.hasFailures());
+        readOnlyCorpus(MEAL);
     }
 
     /**
@@ -167,47 +131,49 @@ public class ES006AllFiltersTest extends TestNodeHelper {
     }
 
     /**
-     * TODO Create a test case
      * We want to build a Geo Bounding Box Filter
+     * <br>Paris is the biggest cluster of beers: we should have some results.
      * @throws Exception
      * <br>See <a href="http://www.elasticsearch.org/guide/reference/query-dsl/geo-bounding-box-filter.html">documentation</a>
      */
-    @Test @Ignore
+    @Test
     public void geoBoundingBoxFilter() throws Exception {
-        FilterBuilder filter = FilterBuilders.geoBoundingBoxFilter("pin.location")
-                .topLeft(40.73, -74.1)
-                .bottomRight(40.717, -73.99);
+        FilterBuilder filter = FilterBuilders.geoBoundingBoxFilter("location")
+                .topLeft(49.2, 1.8)
+                .bottomRight(48.5, 2.9);
 
-        launchSearch(filter);
+        SearchResponse sr = launchSearch(filter);
+        Assert.assertTrue(sr.getHits().getTotalHits() > 0);
     }
 
     /**
-     * TODO Create a test case
      * We want to build a Geo Distance Filter
+     * <br>Beers drunk less than 50km from Paris.
      * @throws Exception
      * <br>See <a href="http://www.elasticsearch.org/guide/reference/query-dsl/geo-distance-filter.html">documentation</a>
      */
-    @Test @Ignore
+    @Test
     public void geoDistanceFilter() throws Exception {
-        FilterBuilder filter = FilterBuilders.geoDistanceFilter("pin.location")
-                .point(40, -70)
-                .distance(200, DistanceUnit.KILOMETERS)
-                .optimizeBbox("memory")
+        FilterBuilder filter = FilterBuilders.geoDistanceFilter("location")
+                .point(48.8566, 2.3522)
+                .distance(50, DistanceUnit.KILOMETERS)
+                .optimizeBbox("memory") // "indexed" uses the lat_lon fields of the mapping, "none" checks all points
                 .geoDistance(GeoDistance.ARC);
 
-        launchSearch(filter);
+        SearchResponse sr = launchSearch(filter);
+        Assert.assertTrue(sr.getHits().getTotalHits() > 0);
     }
 
     /**
-     * TODO Create a test case
      * We want to build a Geo Distance Range Filter
+     * <br>Beers drunk between 200km and 400km from Paris: Lille, Brussels, London...
      * @throws Exception
      * <br>See <a href="http://www.elasticsearch.org/guide/reference/query-dsl/geo-distance-range-filter.html">documentation</a>
      */
-    @Test @Ignore
+    @Test
     public void geoDistanceRangeFilter() throws Exception {
-        FilterBuilder filter = FilterBuilders.geoDistanceRangeFilter("pin.location")
-                .point(40, -70)
+        FilterBuilder filter = FilterBuilders.geoDistanceRangeFilter("location")
+                .point(48.8566, 2.3522)
                 .from("200km")
                 .to("400km")
                 .includeLower(true)
@@ -215,50 +181,55 @@ public class ES006AllFiltersTest extends TestNodeHelper {
                 .optimizeBbox("memory")
                 .geoDistance(GeoDistance.ARC);
 
-        launchSearch(filter);
+        SearchResponse sr = launchSearch(filter);
+        Assert.assertTrue(sr.getHits().getTotalHits() > 0);
     }
 
     /**
-     * TODO Create a test case
      * We want to build a Geo Polygon Filter
+     * <br>A triangle around Belgium and the Netherlands.
      * @throws Exception
      * <br>See <a href="http://www.elasticsearch.org/guide/reference/query-dsl/geo-polygon-filter.html">documentation</a>
      */
-    @Test @Ignore
+    @Test
     public void geoPolygonFilter() throws Exception {
-        FilterBuilder filter = FilterBuilders.geoPolygonFilter("pin.location")
-                .addPoint(40, -70)
-                .addPoint(30, -80)
-                .addPoint(20, -90);
+        FilterBuilder filter = FilterBuilders.geoPolygonFilter("location")
+                .addPoint(53.5, 4.5)
+                .addPoint(50, 2)
+                .addPoint(50, 7);
 
-        launchSearch(filter);
+        SearchResponse sr = launchSearch(filter);
+        Assert.assertTrue(sr.getHits().getTotalHits() > 0);
     }
 
     /**
-     * TODO Create a test case
      * We want to build a Geo Shape Filter
+     * <br>Filters run on the polygons of the shapes corpus.
      * @throws Exception
      * <br>See <a href="http://www.elasticsearch.org/guide/reference/query-dsl/geo-shape-filter.html">documentation</a>
      */
-    @Test @Ignore
+    @Test
     public void geoShapeFilter() throws Exception {
+        String shapes = readOnlyCorpus(SHAPES);
         FilterBuilder filter = null;
 
-        // Shape within another
-        filter = FilterBuilders.geoShapeFilter("location",
-                new RectangleImpl(0,10,0,10,SpatialContext.GEO))
+        // Shape within another: polygons in a box around Europe (lon from -30 to 60, lat from 20 to 70)
+        filter = FilterBuilders.geoShapeFilter(ShapeCorpus.FIELD,
+                new RectangleImpl(-30, 60, 20, 70, SpatialContext.GEO))
                 .relation(ShapeRelation.WITHIN);
+        Assert.assertTrue(launchShapeSearch(shapes, filter).getHits().getTotalHits() > 0);
 
-        // Intersect shapes
-        filter = FilterBuilders.geoShapeFilter("location",
-                new PointImpl(0, 0, SpatialContext.GEO))
+        // Intersect shapes: the centre of a polygon is in this polygon
+        double[] centre = SHAPES.centre(0);
+        filter = FilterBuilders.geoShapeFilter(ShapeCorpus.FIELD,
+                new PointImpl(centre[0], centre[1], SpatialContext.GEO))
                 .relation(ShapeRelation.INTERSECTS);
+        Assert.assertTrue(launchShapeSearch(shapes, filter).getHits().getTotalHits() > 0);
 
-        // Using pre-indexed shapes
-        filter = FilterBuilders.geoShapeFilter("location", "New Zealand", "countries")
+        // Using pre-indexed shapes: "New Zealand" in the shape field of type countries, in the shapes index
+        filter = FilterBuilders.geoShapeFilter(ShapeCorpus.FIELD, "New Zealand", ShapeCorpus.COUNTRIES)
                 .relation(ShapeRelation.DISJOINT);
-
-        launchSearch(filter);
+        Assert.assertTrue(launchShapeSearch(shapes, filter).getHits().getTotalHits() > 0);
     }
 
     /**
@@ -270,21 +241,20 @@ public class ES006AllFiltersTest extends TestNodeHelper {
      */
     @Test
     public void hasChildFilter() throws Exception {
-        FilterBuilder qb = FilterBuilders.hasChildFilter("blog_tag",
-                QueryBuilders.termQuery("tag", "something"));
+        FilterBuilder qb = FilterBuilders.hasChildFilter(BreweryCorpus.CHILD_TYPE,
+                QueryBuilders.termQuery("brand", "heineken"));
 
         logger.info("Your query is : {}", qb);
 
-        // TODO Create a test here
         // Execute the query
-        /*SearchResponse sr = null;
-        sr = node.client().prepareSearch("meal").setQuery(qb).execute().actionGet();
+        SearchResponse sr = null;
+        sr = client().prepareSearch(readOnlyCorpus(BREWERIES)).setFilter(qb).execute().actionGet();
 
         Assert.assertNotNull(sr);
         Assert.assertNotNull(sr.getHits());
         Assert.assertTrue(sr.getHits().getTotalHits() > 0);
 
-        logger.info("We found {} beers", sr.getHits().totalHits());*/
+        logger.info("We found {} breweries", sr.getHits().totalHits());
     }
 
     /**
@@ -296,21 +266,20 @@ public class ES006AllFiltersTest extends TestNodeHelper {
      */
     @Test
     public void hasParentFilter() throws Exception {
-        FilterBuilder qb = FilterBuilders.hasParentFilter("blog",
-                QueryBuilders.termQuery("tag", "something"));
+        FilterBuilder qb = FilterBuilders.hasParentFilter(BreweryCorpus.PARENT_TYPE,
+                QueryBuilders.termQuery("city", "brussels"));
 
         logger.info("Your query is : {}", qb);
 
-        // TODO Create a test here
         // Execute the query
-        /*SearchResponse sr = null;
-        sr = node.client().prepareSearch("meal").setQuery(qb).execute().actionGet();
+        SearchResponse sr = null;
+        sr = client().prepareSearch(readOnlyCorpus(BREWERIES)).setFilter(qb).execute().actionGet();
 
         Assert.assertNotNull(sr);
         Assert.assertNotNull(sr.getHits());
         Assert.assertTrue(sr.getHits().getTotalHits() > 0);
 
-        logger.info("We found {} beers", sr.getHits().totalHits());*/
+        logger.info("We found {} beers", sr.getHits().totalHits());
     }
 
     /**
@@ -470,23 +439,39 @@ public class ES006AllFiltersTest extends TestNodeHelper {
     }
 
     /**
-     * TODO Create a test
      * We want to build a Nested Filter
+     * <br>Beers with more than 5 hops: name and count of the same ingredient must match.
      * @throws Exception
      * <br>See <a href="http://www.elasticsearch.org/guide/reference/query-dsl/nested-filter.html">documentation</a>
      */
-    @Test @Ignore
+    @Test
     public void nestedFilter() throws Exception {
-        FilterBuilder filter = FilterBuilders.nestedFilter("obj1",
+        FilterBuilder filter = FilterBuilders.nestedFilter("ingredients",
                 QueryBuilders.boolQuery()
-                        .must(QueryBuilders.matchQuery("obj1.name", "blue"))
-                        .must(QueryBuilders.rangeQuery("obj1.count").gt(5))
+                        .must(QueryBuilders.matchQuery("ingredients.name", "hops"))
+                        .must(QueryBuilders.rangeQuery("ingredients.count").gt(5))
         );
-        launchSearch(filter);
+
+        SearchResponse sr = launchSearch(filter);
+        Assert.assertTrue(sr.getHits().getTotalHits() > 0);
+    }
+
+    private SearchResponse launchShapeSearch(String shapes, FilterBuilder filter) {
+        SearchResponse sr = client().prepareSearch(shapes)
+                .setTypes(ShapeCorpus.TYPE)
+                .setFilter(filter)
+                .execute().actionGet();
+
+        logger.info("We found {} shapes", sr.getHits().getTotalHits());
+
+        Assert.assertNotNull(sr);
+        Assert.assertNotNull(sr.getHits());
+
+        return sr;
     }
 
     private SearchResponse launchSearch(FilterBuilder filter) {
-        SearchResponse sr = node.client().prepareSearch()
+        SearchResponse sr = client().prepareSearch(MEAL.getName())
                 .setFilter(filter)
                 .execute().actionGet();
 
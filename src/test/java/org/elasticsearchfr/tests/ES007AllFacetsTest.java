@@ -1,10 +1,5 @@
 package org.elasticsearchfr.tests;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.elasticsearch.action.bulk.BulkRequestBuilder;
-import org.elasticsearch.action.bulk.BulkResponse;
-import org.elasticsearch.action.delete.DeleteRequest;
-import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.ESLoggerFactory;
@@ -33,8 +28,6 @@ import org.elasticsearch.search.facet.terms.TermsFacet;
 import org.elasticsearch.search.facet.terms.TermsFacetBuilder;
 import org.elasticsearch.search.facet.termsstats.TermsStatsFacet;
 import org.elasticsearch.search.facet.termsstats.TermsStatsFacetBuilder;
-import org.elasticsearchfr.tests.bean.Beer;
-import org.elasticsearchfr.tests.bean.BeerHelper;
 import org.elasticsearchfr.tests.helper.TestNodeHelper;
 import org.junit.*;
 
@@ -47,43 +40,12 @@ public class ES007AllFacetsTest extends TestNodeHelper {
 	protected final ESLogger logger = ESLoggerFactory.getLogger(this.getClass().getName());
 
     /**
-     * When we start a test, we index 1000 beers with random data
+     * Tests share the same read-only corpus of beers, built once for all tests
      * @throws Exception
      */
     @Before
     public void setUp() throws Exception {
-        ObjectMapper mapper = new ObjectMapper();
-
-        BulkRequestBuilder brb = node.client().prepareBulk();
-
-        for (int i = 0; i < 1000; i++) {
-            Beer beer = BeerHelper.generate();
-            IndexRequest irq = new IndexRequest("meal", "beer", "beer_" + i);
-            String jsonString = mapper.writeValueAsString(beer);
-            irq.source(jsonString);
-            brb.add(irq);
-        }
-
-        BulkResponse br = brb.execute().actionGet();
-        Assert.assertFalse(br.hasFailures());
-
-        node.client().admin().indices().prepareRefresh().execute().actionGet();
-    }
-
-    /**
-     * When we stop a test, we remove all data
-     */
-    @After
-    public void tearDown() {
-        BulkRequestBuilder brb = node.client().prepareBulk();
-
-        for (int i = 0; i < 1000; i++) {
-            DeleteRequest dr = new DeleteRequest("meal", "beer", "beer_" + i);
-            brb.add(dr);
-        }
-
-        BulkResponse br = brb.execute().actionGet();
-        Assert.assertFalse(br.hasFailures());
+        readOnlyCorpus(MEAL);
     }
 
     /**
@@ -259,15 +221,15 @@ public class ES007AllFacetsTest extends TestNodeHelper {
 
     /**
      * We want to build a geoDistanceFacet
+     * <br>Beers are counted by distance from Paris, their biggest cluster.
      * @throws Exception
      * <br>See <a href="http://www.elasticsearch.org/guide/reference/api/search/facets/geo-distance-facet.html">documentation</a>
-     * TODO Create real test
      */
-    @Test @Ignore
+    @Test
     public void geoDistanceFacet() throws Exception {
         GeoDistanceFacetBuilder facet = FacetBuilders.geoDistanceFacet("f")
                 .field("location")
-                .point(40, -70)
+                .point(48.8566, 2.3522)
                 .addUnboundedFrom(10)
                 .addRange(10, 20)
                 .addRange(20, 100)
@@ -277,6 +239,7 @@ public class ES007AllFacetsTest extends TestNodeHelper {
 
         GeoDistanceFacet f = (GeoDistanceFacet) launchSearch(facet, "f");
 
+        long total = 0;
         // For each entry
         for (GeoDistanceFacet.Entry entry : f) {
             entry.getFrom();            // Distance from requested
@@ -286,7 +249,9 @@ public class ES007AllFacetsTest extends TestNodeHelper {
             entry.getMax();             // Max value
             entry.getTotal();           // Sum of values
             entry.getMean();            // Mean
+            total += entry.getCount();
         }
+        Assert.assertTrue(total > 0);
     }
 
     /**
@@ -327,7 +292,7 @@ public class ES007AllFacetsTest extends TestNodeHelper {
                 .field("brand")
                 .facetFilter(filter);
 
-        SearchResponse sr = node.client().prepareSearch()
+        SearchResponse sr = client().prepareSearch(MEAL.getName())
                 .setQuery(QueryBuilders.matchAllQuery())
                 .setFilter(filter)
                 .addFacet(facet)
@@ -356,7 +321,7 @@ public class ES007AllFacetsTest extends TestNodeHelper {
     }
 
     private Facet launchSearch(FacetBuilder facet, String facetName) {
-        SearchResponse sr = node.client().prepareSearch()
+        SearchResponse sr = client().prepareSearch(MEAL.getName())
                 .setQuery(QueryBuilders.matchAllQuery())
                 .addFacet(facet)
                 .execute().actionGet();
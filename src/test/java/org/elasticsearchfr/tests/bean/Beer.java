@@ -2,6 +2,7 @@ package org.elasticsearchfr.tests.bean;
 
 import java.io.Serializable;
 import java.util.Date;
+import java.util.List;
 
 public class Beer implements Serializable {
 	private static final long serialVersionUID = 1L;
@@ -11,6 +12,8 @@ public class Beer implements Serializable {
 	private double size;
 	private double price;
     private Date date;
+	private Location location;
+	private List<Ingredient> ingredients;
 
 	public Beer() {
 	}
@@ -29,6 +32,19 @@ public class Beer implements Serializable {
         this.date = date;
 	}
 
+	/**
+	 * @param brand
+	 * @param colour
+	 * @param size
+	 * @param price
+	 * @param date
+	 * @param location
+	 */
+	public Beer(String brand, Colour colour, double size, double price, Date date, Location location) {
+		this(brand, colour, size, price, date);
+		this.location = location;
+	}
+
 	/**
 	 * @return the brand
 	 */
@@ -97,6 +113,36 @@ public class Beer implements Serializable {
         this.date = date;
     }
 
+	/**
+	 * @return where the beer has been drunk
+	 */
+	public Location getLocation() {
+		return location;
+	}
+
+	/**
+	 * @param location
+	 *            the location to set
+	 */
+	public void setLocation(Location location) {
+		this.location = location;
+	}
+
+	/**
+	 * @return the ingredients
+	 */
+	public List<Ingredient> getIngredients() {
+		return ingredients;
+	}
+
+	/**
+	 * @param ingredients
+	 *            the ingredients to set
+	 */
+	public void setIngredients(List<Ingredient> ingredients) {
+		this.ingredients = ingredients;
+	}
+
     @Override
 	public boolean equals(Object obj) {
 
@@ -111,6 +157,8 @@ public class Beer implements Serializable {
 		if (this.size != beer.size ) return false;
 		if (this.price != beer.price) return false;
         if (this.date != beer.date && this.date != null && !this.date.equals(beer.date)) return false;
+		if (this.location != beer.location && (this.location == null || !this.location.equals(beer.location))) return false;
+		if (this.ingredients != beer.ingredients && (this.ingredients == null || !this.ingredients.equals(beer.ingredients))) return false;
 
         return true;
 	}
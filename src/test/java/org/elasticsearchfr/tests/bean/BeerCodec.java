@@ -0,0 +1,404 @@
+package org.elasticsearchfr.tests.bean;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.dataformat.smile.SmileConstants;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.StreamInput;
+
+/**
+ * Write and read beers with the Jackson streaming API.
+ * <br>Documents are the same as the ones written by an ObjectMapper (dates are
+ * milliseconds since epoch), but no ObjectMapper, no String and no growing buffer are created:
+ * each thread reuses its own codec (see {@link #local()}) with its own buffer and generator.
+ * <br>Beers can be written as JSON or SMILE (binary JSON). Elasticsearch detects the format
+ * of a source, and so does {@link #read(BytesReference, Beer)}.
+ * <pre>
+ * byte[] source = BeerCodec.local(Format.SMILE).encode(beer);
+ * Beer beer = BeerCodec.local().read(hit.sourceRef(), reusableBeer);
+ * </pre>
+ * A codec is not thread safe.
+ */
+public class BeerCodec {
+
+	/**
+	 * Format of written documents
+	 */
+	public static enum Format {
+		JSON,
+		SMILE
+	}
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+	private static final SmileFactory SMILE_FACTORY = new SmileFactory();
+
+	private static final ThreadLocal<BeerCodec[]> LOCAL = new ThreadLocal<BeerCodec[]>() {
+		@Override
+		protected BeerCodec[] initialValue() {
+			return new BeerCodec[Format.values().length];
+		}
+	};
+
+	private static final Colour[] COLOURS = Colour.values();
+
+	private final Format format;
+	private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+	private JsonGenerator generator;
+
+	/**
+	 * Prefer {@link #local()} to get a codec for the current thread
+	 */
+	public BeerCodec() {
+		this(Format.JSON);
+	}
+
+	/**
+	 * Prefer {@link #local(Format)} to get a codec for the current thread
+	 * @param format format of written documents
+	 */
+	public BeerCodec(Format format) {
+		this.format = format;
+	}
+
+	/**
+	 * @return the JSON codec of the current thread
+	 */
+	public static BeerCodec local() {
+		return local(Format.JSON);
+	}
+
+	/**
+	 * @param format format of written documents
+	 * @return the codec of the current thread
+	 */
+	public static BeerCodec local(Format format) {
+		BeerCodec[] codecs = LOCAL.get();
+		if (codecs[format.ordinal()] == null) {
+			codecs[format.ordinal()] = new BeerCodec(format);
+		}
+		return codecs[format.ordinal()];
+	}
+
+	/**
+	 * @return format of written documents
+	 */
+	public Format getFormat() {
+		return format;
+	}
+
+	/**
+	 * @param beer
+	 * @return the beer as a JSON or SMILE document (see {@link #getFormat()})
+	 * @throws IOException
+	 */
+	public byte[] encode(Beer beer) throws IOException {
+		Location location = beer.getLocation();
+		String[] names = null;
+		int[] counts = null;
+		if (beer.getIngredients() != null) {
+			names = new String[beer.getIngredients().size()];
+			counts = new int[names.length];
+			for (int i = 0; i < names.length; i++) {
+				names[i] = beer.getIngredients().get(i).getName();
+				counts[i] = beer.getIngredients().get(i).getCount();
+			}
+		}
+		return encode(beer.getBrand(), beer.getColour(), beer.getSize(), beer.getPrice(),
+				beer.getDate() == null ? null : beer.getDate().getTime(),
+				location != null, location == null ? 0 : location.getLat(), location == null ? 0 : location.getLon(),
+				names, counts);
+	}
+
+	/**
+	 * Encode beer values without creating a Beer. The beer has no location.
+	 * @return the beer as a JSON or SMILE document (see {@link #getFormat()})
+	 * @throws IOException
+	 */
+	public byte[] encode(String brand, Colour colour, double size, double price, Long date) throws IOException {
+		return encode(brand, colour, size, price, date, false, 0, 0, null, null);
+	}
+
+	/**
+	 * Encode beer values without creating a Beer
+	 * @param lat latitude of the beer location
+	 * @param lon longitude of the beer location
+	 * @return the beer as a JSON or SMILE document (see {@link #getFormat()})
+	 * @throws IOException
+	 */
+	public byte[] encode(String brand, Colour colour, double size, double price, Long date,
+			double lat, double lon) throws IOException {
+		return encode(brand, colour, size, price, date, true, lat, lon, null, null);
+	}
+
+	/**
+	 * Encode beer values without creating a Beer
+	 * @param lat latitude of the beer location
+	 * @param lon longitude of the beer location
+	 * @param ingredients ingredient names, null if the beer has no ingredient list
+	 * @param counts count of each ingredient
+	 * @return the beer as a JSON or SMILE document (see {@link #getFormat()})
+	 * @throws IOException
+	 */
+	public byte[] encode(String brand, Colour colour, double size, double price, Long date,
+			double lat, double lon, String[] ingredients, int[] counts) throws IOException {
+		return encode(brand, colour, size, price, date, true, lat, lon, ingredients, counts);
+	}
+
+	private byte[] encode(String brand, Colour colour, double size, double price, Long date,
+			boolean located, double lat, double lon, String[] ingredients, int[] counts) throws IOException {
+		buffer.reset();
+		JsonGenerator generator = generator();
+		generator.writeStartObject();
+		if (brand == null) {
+			generator.writeNullField("brand");
+		} else {
+			generator.writeStringField("brand", brand);
+		}
+		if (colour == null) {
+			generator.writeNullField("colour");
+		} else {
+			generator.writeStringField("colour", colour.name());
+		}
+		generator.writeNumberField("size", size);
+		generator.writeNumberField("price", price);
+		if (date == null) {
+			generator.writeNullField("date");
+		} else {
+			generator.writeNumberField("date", date);
+		}
+		if (located) {
+			generator.writeObjectFieldStart("location");
+			generator.writeNumberField("lat", lat);
+			generator.writeNumberField("lon", lon);
+			generator.writeEndObject();
+		} else {
+			generator.writeNullField("location");
+		}
+		if (ingredients == null) {
+			generator.writeNullField("ingredients");
+		} else {
+			generator.writeArrayFieldStart("ingredients");
+			for (int i = 0; i < ingredients.length; i++) {
+				generator.writeStartObject();
+				generator.writeStringField("name", ingredients[i]);
+				generator.writeNumberField("count", counts[i]);
+				generator.writeEndObject();
+			}
+			generator.writeEndArray();
+		}
+		generator.writeEndObject();
+		generator.flush();
+		if (format == Format.SMILE) {
+			// Each SMILE document needs its own header and its own shared names table
+			generator.close();
+		}
+
+		// The only copy: the caller owns the document (it can be queued in a bulk)
+		return buffer.toByteArray();
+	}
+
+	private JsonGenerator generator() throws IOException {
+		if (format == Format.SMILE) {
+			return SMILE_FACTORY.createGenerator(buffer);
+		}
+		if (generator == null) {
+			generator = JSON_FACTORY.createGenerator(buffer);
+			// We write one document after the other in the same generator: no separator between them
+			generator.setRootValueSeparator(null);
+		}
+		return generator;
+	}
+
+	/**
+	 * Read a beer from a JSON or SMILE document without copying it
+	 * @param source document (_source of a hit for example)
+	 * @param reuse beer to fill. When it already has a date, a location or ingredients, they are updated.
+	 * @return reuse
+	 * @throws IOException if the document is not a beer
+	 */
+	public Beer read(BytesReference source, Beer reuse) throws IOException {
+		if (source.hasArray()) {
+			return read(source.array(), source.arrayOffset(), source.length(), reuse);
+		}
+		StreamInput input = source.streamInput();
+		JsonParser parser = isSmile(source) ? SMILE_FACTORY.createParser(input) : JSON_FACTORY.createParser(input);
+		try {
+			return read(parser, reuse);
+		} finally {
+			parser.close();
+		}
+	}
+
+	/**
+	 * Read a beer from a JSON or SMILE document without copying it
+	 * @param source document bytes
+	 * @param offset where the document starts
+	 * @param length document length
+	 * @param reuse beer to fill. When it already has a date, a location or ingredients, they are updated.
+	 * @return reuse
+	 * @throws IOException if the document is not a beer
+	 */
+	public Beer read(byte[] source, int offset, int length, Beer reuse) throws IOException {
+		JsonParser parser = isSmile(source, offset, length) ?
+				SMILE_FACTORY.createParser(source, offset, length) : JSON_FACTORY.createParser(source, offset, length);
+		try {
+			return read(parser, reuse);
+		} finally {
+			parser.close();
+		}
+	}
+
+	/**
+	 * SMILE documents start with the <code>:)\n</code> header
+	 */
+	private static boolean isSmile(byte[] source, int offset, int length) {
+		return length > 2 && source[offset] == SmileConstants.HEADER_BYTE_1
+				&& source[offset + 1] == SmileConstants.HEADER_BYTE_2 && source[offset + 2] == SmileConstants.HEADER_BYTE_3;
+	}
+
+	private static boolean isSmile(BytesReference source) {
+		return source.length() > 2 && source.get(0) == SmileConstants.HEADER_BYTE_1
+				&& source.get(1) == SmileConstants.HEADER_BYTE_2 && source.get(2) == SmileConstants.HEADER_BYTE_3;
+	}
+
+	private static Beer read(JsonParser parser, Beer beer) throws IOException {
+		if (parser.nextToken() != JsonToken.START_OBJECT) {
+			throw new IOException("A beer must be a JSON object");
+		}
+
+		JsonToken token;
+		while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+			// Field names are canonicalized (interned) by Jackson
+			String field = parser.getCurrentName();
+			token = parser.nextToken();
+			boolean isNull = token == JsonToken.VALUE_NULL;
+
+			if ("brand".equals(field)) {
+				beer.setBrand(isNull ? null : parser.getText());
+			} else if ("colour".equals(field)) {
+				beer.setColour(isNull ? null : colour(parser));
+			} else if ("size".equals(field)) {
+				beer.setSize(isNull ? 0 : parser.getDoubleValue());
+			} else if ("price".equals(field)) {
+				beer.setPrice(isNull ? 0 : parser.getDoubleValue());
+			} else if ("date".equals(field)) {
+				if (isNull) {
+					beer.setDate(null);
+				} else if (beer.getDate() == null) {
+					beer.setDate(new Date(parser.getLongValue()));
+				} else {
+					beer.getDate().setTime(parser.getLongValue());
+				}
+			} else if ("location".equals(field)) {
+				beer.setLocation(isNull ? null : location(parser, beer.getLocation()));
+			} else if ("ingredients".equals(field)) {
+				beer.setIngredients(isNull ? null : ingredients(parser, beer.getIngredients()));
+			} else {
+				parser.skipChildren();
+			}
+		}
+
+		if (token != JsonToken.END_OBJECT) {
+			throw new IOException("Unexpected token " + token + " in a beer");
+		}
+		return beer;
+	}
+
+	/**
+	 * Read a <code>{"lat": .., "lon": ..}</code> object
+	 * @param reuse location to fill, may be null
+	 */
+	private static Location location(JsonParser parser, Location reuse) throws IOException {
+		if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+			throw new IOException("A location must be a JSON object");
+		}
+		Location location = reuse == null ? new Location() : reuse;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			parser.nextToken();
+			if ("lat".equals(field)) {
+				location.setLat(parser.getDoubleValue());
+			} else if ("lon".equals(field)) {
+				location.setLon(parser.getDoubleValue());
+			} else {
+				parser.skipChildren();
+			}
+		}
+		return location;
+	}
+
+	/**
+	 * Read an array of <code>{"name": .., "count": ..}</code> objects
+	 * @param reuse list to fill, may be null. Its ingredients are reused.
+	 */
+	private static List<Ingredient> ingredients(JsonParser parser, List<Ingredient> reuse) throws IOException {
+		if (parser.getCurrentToken() != JsonToken.START_ARRAY) {
+			throw new IOException("Ingredients must be a JSON array");
+		}
+		List<Ingredient> ingredients = reuse == null ? new ArrayList<Ingredient>() : reuse;
+		int size = 0;
+		while (parser.nextToken() == JsonToken.START_OBJECT) {
+			Ingredient ingredient;
+			if (size < ingredients.size()) {
+				ingredient = ingredients.get(size);
+			} else {
+				ingredient = new Ingredient();
+				ingredients.add(ingredient);
+			}
+			size++;
+
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				parser.nextToken();
+				if ("name".equals(field)) {
+					ingredient.setName(parser.getText());
+				} else if ("count".equals(field)) {
+					ingredient.setCount(parser.getIntValue());
+				} else {
+					parser.skipChildren();
+				}
+			}
+		}
+		while (ingredients.size() > size) {
+			ingredients.remove(ingredients.size() - 1);
+		}
+		return ingredients;
+	}
+
+	/**
+	 * Find the colour without creating a String
+	 */
+	private static Colour colour(JsonParser parser) throws IOException {
+		char[] chars = parser.getTextCharacters();
+		int offset = parser.getTextOffset();
+		int length = parser.getTextLength();
+
+		for (Colour colour : COLOURS) {
+			if (matches(colour.name(), chars, offset, length)) {
+				return colour;
+			}
+		}
+		throw new IOException("Unknown colour " + new String(chars, offset, length));
+	}
+
+	private static boolean matches(String name, char[] chars, int offset, int length) {
+		if (name.length() != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (name.charAt(i) != chars[offset + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,75 @@
+package org.elasticsearchfr.tests.bean;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearchfr.tests.bean.BeerCodec.Format;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Testing that the codec reads and writes the same documents as an ObjectMapper
+ */
+public class BeerCodecTest {
+
+	@Test
+	public void roundTrip() throws Exception {
+		BeerCodec codec = BeerCodec.local();
+		Beer reuse = new Beer();
+		for (long id = 0; id < 100; id++) {
+			Beer beer = new BeerGenerator(42).beer(id);
+			byte[] source = codec.encode(beer);
+			Assert.assertEquals(beer, codec.read(new BytesArray(source), reuse));
+		}
+	}
+
+	@Test
+	public void ingredientsRoundTrip() throws Exception {
+		BeerCodec codec = BeerCodec.local();
+		Beer reuse = new Beer();
+		// Ingredient lists of the reused beer grow and shrink
+		for (int ingredients : new int[] {3, 10, 0, 5}) {
+			Beer beer = new BeerGenerator(42).ingredients(ingredients).beer(ingredients);
+			Assert.assertEquals(ingredients, beer.getIngredients().size());
+			Assert.assertEquals(beer, codec.read(new BytesArray(codec.encode(beer)), reuse));
+		}
+	}
+
+	@Test
+	public void compatibleWithObjectMapper() throws Exception {
+		ObjectMapper mapper = new ObjectMapper();
+		Beer beer = BeerHelper.generate();
+
+		// ObjectMapper -> codec
+		Assert.assertEquals(beer, BeerHelper.toBeer(mapper.writeValueAsString(beer)));
+
+		// codec -> ObjectMapper
+		Assert.assertEquals(beer, mapper.readValue(BeerCodec.local().encode(beer), Beer.class));
+	}
+
+	@Test
+	public void readFromSlice() throws Exception {
+		Beer beer = BeerHelper.generate();
+		byte[] source = BeerCodec.local().encode(beer);
+
+		// A hit _source is often a slice of a bigger array
+		byte[] response = new byte[source.length + 20];
+		System.arraycopy(source, 0, response, 10, source.length);
+
+		Assert.assertEquals(beer, BeerCodec.local().read(new BytesArray(response, 10, source.length), new Beer()));
+	}
+
+	@Test
+	public void smileRoundTrip() throws Exception {
+		BeerCodec smile = BeerCodec.local(Format.SMILE);
+		for (long id = 0; id < 100; id++) {
+			Beer beer = new BeerGenerator(42).beer(id);
+			byte[] source = smile.encode(beer);
+
+			// Each document has its own header so it can be read alone
+			Assert.assertEquals(':', source[0]);
+			Assert.assertEquals(beer, BeerCodec.local().read(new BytesArray(source), new Beer()));
+			Assert.assertTrue(source.length < BeerCodec.local().encode(beer).length);
+		}
+	}
+}
@@ -0,0 +1,442 @@
+package org.elasticsearchfr.tests.bean;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Seeded beer generator.
+ * <br>Each beer only depends on the seed and on its id: beer 42 is always the same beer,
+ * whatever the thread or the order it has been generated in. So a corpus can be split
+ * in id ranges generated in parallel (see {@link #split(long, int)}).
+ * <br>Beers are streamed to a {@link BeerSink} as plain values: no Beer object is created.
+ * <br>Beers are located around cities (see {@link #locations(int, double)}): a few big clusters
+ * and a long tail of smaller ones, as real points of interest are.
+ * <br>Beers have no ingredients unless {@link #ingredients(int)} says otherwise.
+ * <pre>
+ * BeerGenerator generator = new BeerGenerator(42)
+ *         .brands(1000, Distribution.ZIPF, 1.1)
+ *         .prices(PriceCurve.LOG_NORMAL, 1.5, 0.4);
+ * generator.generate(0, 1000000, sink);
+ * </pre>
+ */
+public class BeerGenerator {
+
+	/**
+	 * Receive generated beers
+	 */
+	public interface BeerSink {
+		/**
+		 * @param ingredients ingredient names. Names are shared constants: the array is new for each beer.
+		 * @param counts count of each ingredient
+		 */
+		void beer(long id, String brand, Colour colour, double size, double price, long date,
+				double lat, double lon, String[] ingredients, int[] counts) throws IOException;
+	}
+
+	/**
+	 * How brands are picked
+	 */
+	public enum Distribution {
+		/**
+		 * All brands have the same probability
+		 */
+		UNIFORM,
+		/**
+		 * Brand k has a probability proportional to 1/(k+1)^exponent
+		 */
+		ZIPF
+	}
+
+	/**
+	 * How prices are picked
+	 */
+	public enum PriceCurve {
+		/**
+		 * Between a and b
+		 */
+		UNIFORM,
+		/**
+		 * Mean a, standard deviation b (negative prices are set to 0)
+		 */
+		NORMAL,
+		/**
+		 * exp(N(a, b))
+		 */
+		LOG_NORMAL
+	}
+
+	private static final String[] REAL_BRANDS = {"Heineken", "Grimbergen", "Kriek"};
+	private static final Colour[] COLOURS = Colour.values();
+
+	/**
+	 * Latitude and longitude of the default location clusters, biggest first
+	 */
+	private static final double[][] CITIES = {
+		{48.8566, 2.3522},     // Paris
+		{50.8503, 4.3517},     // Brussels
+		{52.3702, 4.8952},     // Amsterdam
+		{51.5074, -0.1278},    // London
+		{52.5200, 13.4050},    // Berlin
+		{48.1351, 11.5820},    // Munich
+		{50.0755, 14.4378},    // Prague
+		{53.3498, -6.2603},    // Dublin
+		{45.7640, 4.8357},     // Lyon
+		{50.6292, 3.0573},     // Lille
+		{51.2194, 4.4025},     // Antwerp
+		{50.9375, 6.9603},     // Cologne
+		{40.4168, -3.7038},    // Madrid
+		{41.9028, 12.4964},    // Rome
+		{40.7128, -74.0060},   // New York
+		{42.3601, -71.0589},   // Boston
+		{45.5152, -122.6784},  // Portland
+		{39.7392, -104.9903},  // Denver
+		{45.5017, -73.5673},   // Montreal
+		{37.7749, -122.4194}   // San Francisco
+	};
+
+	private static final String[] INGREDIENTS = {"malt", "hops", "yeast", "wheat", "barley", "oats", "rye",
+		"corn", "rice", "sugar", "honey", "coriander", "orange", "cherry", "raspberry", "coffee", "chocolate",
+		"vanilla", "ginger", "spruce"};
+
+	private static final long DATE_FROM;
+	private static final long DATE_TO;
+
+	static {
+		Calendar cal = Calendar.getInstance();
+		cal.clear();
+		cal.set(2010, Calendar.JULY, 17);
+		DATE_FROM = cal.getTimeInMillis();
+		cal.set(2012, Calendar.DECEMBER, 26);
+		DATE_TO = cal.getTimeInMillis();
+	}
+
+	private final long seed;
+
+	private String[] brands = REAL_BRANDS;
+	private Distribution brandDistribution = Distribution.UNIFORM;
+	private double zipfExponent = 1.0;
+	private double[] brandCdf;
+
+	private long dateFrom = DATE_FROM;
+	private long dateTo = DATE_TO;
+
+	private PriceCurve priceCurve = PriceCurve.UNIFORM;
+	private double priceA = 0;
+	private double priceB = 10;
+
+	private double maxSize = 2;
+
+	private double[][] locationCentres = CITIES;
+	private double locationSpread = 0.2;
+	private double[] locationCdf = zipfCdf(CITIES.length, 1.0);
+
+	private int ingredients = 0;
+
+	/**
+	 * @param seed random seed
+	 */
+	public BeerGenerator(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Pick brands uniformly among a number of brands.
+	 * @param count number of brands. With 3 brands or less, we use real brand names.
+	 * With more brands, they are named <code>brand0</code> to <code>brand(count-1)</code>.
+	 * @return this generator
+	 */
+	public BeerGenerator brands(int count) {
+		return brands(count, Distribution.UNIFORM, 1.0);
+	}
+
+	/**
+	 * @param count number of brands (see {@link #brands(int)})
+	 * @param distribution how brands are picked
+	 * @param exponent Zipf exponent (ignored for uniform distribution)
+	 * @return this generator
+	 */
+	public BeerGenerator brands(int count, Distribution distribution, double exponent) {
+		if (count <= REAL_BRANDS.length) {
+			brands = Arrays.copyOf(REAL_BRANDS, count);
+		} else {
+			brands = new String[count];
+			for (int i = 0; i < count; i++) {
+				brands[i] = "brand" + i;
+			}
+		}
+		this.brandDistribution = distribution;
+		this.zipfExponent = exponent;
+		this.brandCdf = distribution == Distribution.ZIPF ? zipfCdf(count, exponent) : null;
+		return this;
+	}
+
+	/**
+	 * Beers are dated between two dates
+	 * @param from
+	 * @param to
+	 * @return this generator
+	 */
+	public BeerGenerator dates(Date from, Date to) {
+		this.dateFrom = from.getTime();
+		this.dateTo = to.getTime();
+		return this;
+	}
+
+	/**
+	 * @param curve how prices are picked
+	 * @param a first curve parameter (see {@link PriceCurve})
+	 * @param b second curve parameter (see {@link PriceCurve})
+	 * @return this generator
+	 */
+	public BeerGenerator prices(PriceCurve curve, double a, double b) {
+		this.priceCurve = curve;
+		this.priceA = a;
+		this.priceB = b;
+		return this;
+	}
+
+	/**
+	 * @param maxSize sizes are picked between 0 and maxSize
+	 * @return this generator
+	 */
+	public BeerGenerator sizes(double maxSize) {
+		this.maxSize = maxSize;
+		return this;
+	}
+
+	/**
+	 * Locate beers around a number of clusters. Clusters are picked with a Zipf distribution
+	 * (exponent 1): the first cluster is the biggest one. Points are scattered around the cluster
+	 * centre with a normal distribution.
+	 * @param clusters number of clusters. Up to 20, clusters are real cities (Paris first).
+	 * Over 20, centres are picked at random (from the seed) on land and sea alike.
+	 * @param spread standard deviation of points around their centre, in degrees (0.2 is about 20 km)
+	 * @return this generator
+	 */
+	public BeerGenerator locations(int clusters, double spread) {
+		if (clusters <= CITIES.length) {
+			locationCentres = Arrays.copyOf(CITIES, clusters);
+		} else {
+			locationCentres = new double[clusters][];
+			DocRandom random = new DocRandom();
+			for (int i = 0; i < clusters; i++) {
+				random.reset(seed, -1 - i);
+				locationCentres[i] = new double[] {random.nextDouble() * 140 - 70, random.nextDouble() * 360 - 180};
+			}
+		}
+		this.locationSpread = spread;
+		this.locationCdf = zipfCdf(clusters, 1.0);
+		return this;
+	}
+
+	/**
+	 * Give each beer a number of ingredients, picked uniformly among 20 names (malt, hops, yeast...)
+	 * with a count between 1 and 10. A beer may have the same ingredient twice.
+	 * @param ingredients number of ingredients of each beer
+	 * @return this generator
+	 */
+	public BeerGenerator ingredients(int ingredients) {
+		this.ingredients = ingredients;
+		return this;
+	}
+
+	/**
+	 * @return the number of ingredients of each beer
+	 */
+	public int getIngredients() {
+		return ingredients;
+	}
+
+	/**
+	 * @return the number of distinct brands
+	 */
+	public int getBrandCount() {
+		return brands.length;
+	}
+
+	/**
+	 * Two generators with the same key generate the same beers
+	 * @return a key usable in an index name
+	 */
+	public String getKey() {
+		return seed + "_" + Integer.toHexString(toString().hashCode());
+	}
+
+	/**
+	 * Generate beers with id from (included) to (excluded)
+	 * @param from first id
+	 * @param to last id (excluded)
+	 * @param sink where beers go
+	 * @throws IOException if the sink fails
+	 */
+	public void generate(long from, long to, BeerSink sink) throws IOException {
+		DocRandom random = new DocRandom();
+		for (long id = from; id < to; id++) {
+			random.reset(seed, id);
+			String brand = brands[pickBrand(random)];
+			Colour colour = COLOURS[random.nextInt(COLOURS.length)];
+			double size = random.nextDouble() * maxSize;
+			double price = pickPrice(random);
+			long date = dateFrom + (long) (random.nextDouble() * (dateTo - dateFrom));
+			double[] centre = locationCentres[pick(locationCdf, random)];
+			double lat = Math.max(-90, Math.min(90, centre[0] + locationSpread * random.nextGaussian()));
+			double lon = wrap(centre[1] + locationSpread * random.nextGaussian());
+			String[] names = new String[ingredients];
+			int[] counts = new int[ingredients];
+			for (int i = 0; i < ingredients; i++) {
+				names[i] = INGREDIENTS[random.nextInt(INGREDIENTS.length)];
+				counts[i] = 1 + random.nextInt(10);
+			}
+			sink.beer(id, brand, colour, size, price, date, lat, lon, names, counts);
+		}
+	}
+
+	/**
+	 * Generate one beer as a Beer object
+	 * @param id beer id
+	 * @return the beer
+	 */
+	public Beer beer(long id) {
+		final Beer beer = new Beer();
+		try {
+			generate(id, id + 1, new BeerSink() {
+				public void beer(long id, String brand, Colour colour, double size, double price, long date,
+						double lat, double lon, String[] ingredients, int[] counts) {
+					beer.setBrand(brand);
+					beer.setColour(colour);
+					beer.setSize(size);
+					beer.setPrice(price);
+					beer.setDate(new Date(date));
+					beer.setLocation(new Location(lat, lon));
+					List<Ingredient> list = new ArrayList<Ingredient>(ingredients.length);
+					for (int i = 0; i < ingredients.length; i++) {
+						list.add(new Ingredient(ingredients[i], counts[i]));
+					}
+					beer.setIngredients(list);
+				}
+			});
+		} catch (IOException e) {
+			// Our sink does not throw any IOException
+			throw new IllegalStateException(e);
+		}
+		return beer;
+	}
+
+	/**
+	 * Split ids from 0 to size in contiguous ranges to generate them in parallel
+	 * @param size number of beers
+	 * @param parts number of ranges
+	 * @return parts+1 bounds: range i goes from bounds[i] (included) to bounds[i+1] (excluded)
+	 */
+	public static long[] split(long size, int parts) {
+		long[] bounds = new long[parts + 1];
+		for (int i = 0; i <= parts; i++) {
+			bounds[i] = size * i / parts;
+		}
+		return bounds;
+	}
+
+	private int pickBrand(DocRandom random) {
+		if (brandCdf == null) {
+			return random.nextInt(brands.length);
+		}
+		return pick(brandCdf, random);
+	}
+
+	private static int pick(double[] cdf, DocRandom random) {
+		int i = Arrays.binarySearch(cdf, random.nextDouble());
+		return Math.min(i >= 0 ? i : -i - 1, cdf.length - 1);
+	}
+
+	/**
+	 * @return a longitude between -180 and 180
+	 */
+	private static double wrap(double lon) {
+		if (lon > 180) {
+			return lon - 360;
+		}
+		if (lon < -180) {
+			return lon + 360;
+		}
+		return lon;
+	}
+
+	private double pickPrice(DocRandom random) {
+		switch (priceCurve) {
+		case NORMAL:
+			return Math.max(0, priceA + priceB * random.nextGaussian());
+		case LOG_NORMAL:
+			return Math.exp(priceA + priceB * random.nextGaussian());
+		default:
+			return priceA + random.nextDouble() * (priceB - priceA);
+		}
+	}
+
+	private static double[] zipfCdf(int count, double exponent) {
+		double[] cdf = new double[count];
+		double sum = 0;
+		for (int k = 0; k < count; k++) {
+			sum += 1.0 / Math.pow(k + 1, exponent);
+			cdf[k] = sum;
+		}
+		for (int k = 0; k < count; k++) {
+			cdf[k] /= sum;
+		}
+		return cdf;
+	}
+
+	@Override
+	public String toString() {
+		return "seed=" + seed + ",brands=" + brands.length + "/" + brandDistribution
+				+ (brandDistribution == Distribution.ZIPF ? "(" + zipfExponent + ")" : "")
+				+ ",dates=" + dateFrom + "-" + dateTo
+				+ ",prices=" + priceCurve + "(" + priceA + "," + priceB + ")"
+				+ ",sizes=" + maxSize
+				+ ",locations=" + locationCentres.length + "(" + locationSpread + ")"
+				+ ",ingredients=" + ingredients;
+	}
+
+	/**
+	 * SplitMix64 random numbers, seeded from the generator seed and the beer id.
+	 * <br>Not thread safe: each {@link BeerGenerator#generate(long, long, BeerSink)} call has its own.
+	 */
+	private static class DocRandom {
+		private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+		private long state;
+
+		void reset(long seed, long id) {
+			state = mix(seed ^ mix(id + GOLDEN_GAMMA));
+		}
+
+		long nextLong() {
+			state += GOLDEN_GAMMA;
+			return mix(state);
+		}
+
+		double nextDouble() {
+			return (nextLong() >>> 11) * 0x1.0p-53;
+		}
+
+		int nextInt(int bound) {
+			return (int) ((nextLong() >>> 1) % bound);
+		}
+
+		double nextGaussian() {
+			// Box-Muller: we do not keep the second value so a beer only depends on its id
+			double u1 = nextDouble();
+			double u2 = nextDouble();
+			return Math.sqrt(-2 * Math.log(u1 == 0 ? Double.MIN_VALUE : u1)) * Math.cos(2 * Math.PI * u2);
+		}
+
+		private static long mix(long z) {
+			z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+			z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+			return z ^ (z >>> 31);
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package org.elasticsearchfr.tests.bean;
+
+import java.io.IOException;
+
+import org.elasticsearchfr.tests.bean.BeerGenerator.Distribution;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Testing that generated beers only depend on the seed and their id
+ */
+public class BeerGeneratorTest {
+
+	@Test
+	public void sameSeedSameBeers() throws Exception {
+		BeerGenerator g1 = new BeerGenerator(42);
+		BeerGenerator g2 = new BeerGenerator(42);
+
+		for (long id = 0; id < 100; id++) {
+			Assert.assertEquals(g1.beer(id), g2.beer(id));
+		}
+		Assert.assertEquals(g1.getKey(), g2.getKey());
+	}
+
+	@Test
+	public void otherSeedOtherBeers() throws Exception {
+		BeerGenerator g1 = new BeerGenerator(42);
+		BeerGenerator g2 = new BeerGenerator(43);
+
+		Assert.assertFalse(g1.beer(0).getPrice() == g2.beer(0).getPrice());
+		Assert.assertFalse(g1.getKey().equals(g2.getKey()));
+	}
+
+	@Test
+	public void splitRangesCoverAllIds() throws Exception {
+		long[] bounds = BeerGenerator.split(1001, 4);
+
+		Assert.assertEquals(5, bounds.length);
+		Assert.assertEquals(0, bounds[0]);
+		Assert.assertEquals(1001, bounds[4]);
+		for (int i = 0; i < 4; i++) {
+			Assert.assertTrue(bounds[i] <= bounds[i + 1]);
+		}
+	}
+
+	@Test
+	public void zipfBrandsAreSkewed() throws Exception {
+		BeerGenerator generator = new BeerGenerator(0).brands(100, Distribution.ZIPF, 1.2);
+		final int[] counts = new int[100];
+
+		generator.generate(0, 10000, new BeerGenerator.BeerSink() {
+			public void beer(long id, String brand, Colour colour, double size, double price, long date,
+					double lat, double lon, String[] ingredients, int[] counts) throws IOException {
+				counts[Integer.parseInt(brand.substring("brand".length()))]++;
+			}
+		});
+
+		Assert.assertTrue(counts[0] > counts[10]);
+		Assert.assertTrue(counts[10] > counts[99]);
+	}
+
+	@Test
+	public void locationsAreClustered() throws Exception {
+		BeerGenerator generator = new BeerGenerator(0).locations(3, 0.2);
+		// Paris, Brussels, Amsterdam
+		final double[][] centres = {{48.8566, 2.3522}, {50.8503, 4.3517}, {52.3702, 4.8952}};
+		final int[] counts = new int[3];
+
+		generator.generate(0, 10000, new BeerGenerator.BeerSink() {
+			public void beer(long id, String brand, Colour colour, double size, double price, long date,
+					double lat, double lon, String[] ingredients, int[] counts) throws IOException {
+				for (int i = 0; i < centres.length; i++) {
+					// 1 degree is 5 standard deviations
+					if (Math.abs(lat - centres[i][0]) < 1 && Math.abs(lon - centres[i][1]) < 1) {
+						counts[i]++;
+						return;
+					}
+				}
+				Assert.fail("Beer " + id + " is too far from any cluster: " + lat + "," + lon);
+			}
+		});
+
+		Assert.assertTrue(counts[0] > counts[1]);
+		Assert.assertTrue(counts[1] > counts[2]);
+	}
+}
@@ -2,27 +2,41 @@ package org.elasticsearchfr.tests.bean;
 
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.JsonMappingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.Random;
 
 
 public class BeerHelper {
 
+    private static final Random RANDOM = new Random();
+
 	public static Beer generate() {
+		return generate(RANDOM);
+	}
 
-		return new Beer(generateBrand(),
-                generateColour(),
-                Math.random()*2,
-                Math.random()*10,
-                generateDate());
+	/**
+	 * Generate a beer using a given random source. Using a seeded Random
+	 * gives the same beers from one run to another.
+	 * <br>To generate a lot of beers, use {@link BeerGenerator}.
+	 * @param random random source
+	 * @return a new beer
+	 */
+	public static Beer generate(Random random) {
+
+		return new Beer(generateBrand(random),
+                generateColour(random),
+                random.nextDouble()*2,
+                random.nextDouble()*10,
+                generateDate(random),
+                generateLocation(random));
 	}
 
-	private static String generateBrand() {
+	private static String generateBrand(Random random) {
 
-		Long result = Math.round(Math.random() * 2);
+		Long result = Math.round(random.nextDouble() * 2);
 
 		switch (result.intValue()) {
 		case 0:
@@ -39,9 +53,9 @@ public class BeerHelper {
 	}
 	
 	
-	private static Colour generateColour() {
+	private static Colour generateColour(Random random) {
 
-		Long result = Math.round(Math.random() * 2);
+		Long result = Math.round(random.nextDouble() * 2);
 
 		switch (result.intValue()) {
 		case 0:
@@ -63,6 +77,7 @@ public class BeerHelper {
 
     static {
         Calendar cal = Calendar.getInstance();
+        cal.clear();
 
         cal.set(2010, Calendar.JULY, 17);
         DATE_2010 = cal.getTime();
@@ -75,9 +90,9 @@ public class BeerHelper {
 
 
     }
-    private static Date generateDate() {
+    private static Date generateDate(Random random) {
 
-        Long result = Math.round(Math.random() * 2);
+        Long result = Math.round(random.nextDouble() * 2);
 
         switch (result.intValue()) {
             case 0:
@@ -95,11 +110,22 @@ public class BeerHelper {
 
 
 
-    public static Beer toBeer(String json) throws JsonParseException, JsonMappingException, IOException {
-		// instance a json mapper
-		ObjectMapper mapper = new ObjectMapper(); // create once, reuse
-		Beer beer = mapper.readValue(json.getBytes(), Beer.class);
-		return beer;
+    /**
+     * Beers are drunk around Amsterdam, Brussels or Paris, within about 20 km
+     */
+    private static final double[][] CITIES = {
+        {52.3702, 4.8952},
+        {50.8503, 4.3517},
+        {48.8566, 2.3522}
+    };
 
+    private static Location generateLocation(Random random) {
+        double[] city = CITIES[random.nextInt(CITIES.length)];
+        return new Location(city[0] + random.nextGaussian() * 0.2, city[1] + random.nextGaussian() * 0.2);
+    }
+
+    public static Beer toBeer(String json) throws JsonParseException, JsonMappingException, IOException {
+		byte[] bytes = json.getBytes("UTF-8");
+		return BeerCodec.local().read(bytes, 0, bytes.length, new Beer());
 	}
 }
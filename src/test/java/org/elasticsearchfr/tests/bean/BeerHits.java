@@ -0,0 +1,58 @@
+package org.elasticsearchfr.tests.bean;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+
+/**
+ * Map search hits to beers.
+ * <br>Hit sources are parsed in place by the {@link BeerCodec} of the calling thread:
+ * no String is built and the source bytes are not copied.
+ * <pre>
+ * Beer beer = new Beer();
+ * for (SearchHit hit : sr.getHits()) {
+ *     BeerHits.toBeer(hit, beer);
+ *     ...
+ * }
+ * </pre>
+ */
+public class BeerHits {
+
+	/**
+	 * @param hit
+	 * @return a new beer read from the hit source
+	 * @throws IOException if the hit has no source or is not a beer
+	 */
+	public static Beer toBeer(SearchHit hit) throws IOException {
+		return toBeer(hit, new Beer());
+	}
+
+	/**
+	 * @param hit
+	 * @param reuse beer to fill
+	 * @return reuse
+	 * @throws IOException if the hit has no source or is not a beer
+	 */
+	public static Beer toBeer(SearchHit hit, Beer reuse) throws IOException {
+		if (hit.sourceRef() == null) {
+			throw new IOException("Hit [" + hit.getId() + "] has no _source");
+		}
+		return BeerCodec.local().read(hit.sourceRef(), reuse);
+	}
+
+	/**
+	 * @param hits
+	 * @return a new beer for each hit
+	 * @throws IOException if a hit has no source or is not a beer
+	 */
+	public static List<Beer> toBeers(SearchHits hits) throws IOException {
+		List<Beer> beers = new ArrayList<Beer>(hits.getHits().length);
+		for (SearchHit hit : hits) {
+			beers.add(toBeer(hit));
+		}
+		return beers;
+	}
+}
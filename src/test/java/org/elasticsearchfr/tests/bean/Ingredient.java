@@ -0,0 +1,75 @@
+package org.elasticsearchfr.tests.bean;
+
+import java.io.Serializable;
+
+/**
+ * An ingredient of a beer. Beers hold a list of them, indexed as nested documents.
+ */
+public class Ingredient implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private String name;
+	private int count;
+
+	public Ingredient() {
+	}
+
+	/**
+	 * @param name
+	 * @param count
+	 */
+	public Ingredient(String name, int count) {
+		this.name = name;
+		this.count = count;
+	}
+
+	/**
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @param name
+	 *            the name to set
+	 */
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * @return the count
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * @param count
+	 *            the count to set
+	 */
+	public void setCount(int count) {
+		this.count = count;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == null) return false;
+		if (!(obj instanceof Ingredient)) return false;
+
+		Ingredient ingredient = (Ingredient) obj;
+		if (this.name != ingredient.name && (this.name == null || !this.name.equals(ingredient.name))) return false;
+		return this.count == ingredient.count;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * (name == null ? 0 : name.hashCode()) + count;
+	}
+
+	@Override
+	public String toString() {
+		return name + ":" + count;
+	}
+}
@@ -0,0 +1,75 @@
+package org.elasticsearchfr.tests.bean;
+
+import java.io.Serializable;
+
+/**
+ * Where a beer has been drunk. Indexed as a <code>geo_point</code>: <code>{"lat": 48.85, "lon": 2.35}</code>
+ */
+public class Location implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private double lat;
+	private double lon;
+
+	public Location() {
+	}
+
+	/**
+	 * @param lat latitude in degrees
+	 * @param lon longitude in degrees
+	 */
+	public Location(double lat, double lon) {
+		this.lat = lat;
+		this.lon = lon;
+	}
+
+	/**
+	 * @return the latitude
+	 */
+	public double getLat() {
+		return lat;
+	}
+
+	/**
+	 * @param lat
+	 *            the latitude to set
+	 */
+	public void setLat(double lat) {
+		this.lat = lat;
+	}
+
+	/**
+	 * @return the longitude
+	 */
+	public double getLon() {
+		return lon;
+	}
+
+	/**
+	 * @param lon
+	 *            the longitude to set
+	 */
+	public void setLon(double lon) {
+		this.lon = lon;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == null) return false;
+		if (!(obj instanceof Location)) return false;
+
+		Location location = (Location) obj;
+		return this.lat == location.lat && this.lon == location.lon;
+	}
+
+	@Override
+	public int hashCode() {
+		long bits = Double.doubleToLongBits(lat) * 31 + Double.doubleToLongBits(lon);
+		return (int) (bits ^ (bits >>> 32));
+	}
+
+	@Override
+	public String toString() {
+		return lat + "," + lon;
+	}
+}
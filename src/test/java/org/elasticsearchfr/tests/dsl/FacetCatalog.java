@@ -0,0 +1,123 @@
+package org.elasticsearchfr.tests.dsl;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.elasticsearch.common.unit.DistanceUnit;
+import org.elasticsearch.index.query.FilterBuilders;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.facet.FacetBuilder;
+import org.elasticsearch.search.facet.FacetBuilders;
+
+/**
+ * Facets built in {@link org.elasticsearchfr.tests.ES007AllFacetsTest}, by name.
+ * <br>All facets are named <code>f</code>. Facets are created on each call: callers can modify
+ * them without changing other callers' facets.
+ */
+public class FacetCatalog {
+
+	/**
+	 * Name of all facets
+	 */
+	public static final String FACET = "f";
+
+	/**
+	 * Build a facet
+	 */
+	private static abstract class Factory {
+		abstract FacetBuilder build();
+	}
+
+	private static final Map<String, Factory> FACETS;
+
+	static {
+		Map<String, Factory> facets = new LinkedHashMap<String, Factory>();
+
+		facets.put("terms", new Factory() {
+			FacetBuilder build() {
+				return FacetBuilders.termsFacet(FACET).field("brand").size(10);
+			}
+		});
+		facets.put("range", new Factory() {
+			FacetBuilder build() {
+				return FacetBuilders.rangeFacet(FACET)
+						.field("price")
+						.addUnboundedFrom(3)
+						.addRange(3, 6)
+						.addUnboundedTo(6);
+			}
+		});
+		facets.put("histogram", new Factory() {
+			FacetBuilder build() {
+				return FacetBuilders.histogramFacet(FACET).field("price").interval(1);
+			}
+		});
+		facets.put("dateHistogram", new Factory() {
+			FacetBuilder build() {
+				return FacetBuilders.dateHistogramFacet(FACET).field("date").interval("year");
+			}
+		});
+		facets.put("filter", new Factory() {
+			FacetBuilder build() {
+				return FacetBuilders.filterFacet(FACET, FilterBuilders.termFilter("brand", "heineken"));
+			}
+		});
+		facets.put("query", new Factory() {
+			FacetBuilder build() {
+				return FacetBuilders.queryFacet(FACET, QueryBuilders.matchQuery("brand", "heineken"));
+			}
+		});
+		facets.put("statistical", new Factory() {
+			FacetBuilder build() {
+				return FacetBuilders.statisticalFacet(FACET).field("price");
+			}
+		});
+		facets.put("termsStats", new Factory() {
+			FacetBuilder build() {
+				return FacetBuilders.termsStatsFacet(FACET).keyField("brand").valueField("price");
+			}
+		});
+		facets.put("termsWithFacetFilter", new Factory() {
+			FacetBuilder build() {
+				return FacetBuilders.termsFacet(FACET)
+						.field("brand")
+						.facetFilter(FilterBuilders.termFilter("colour", "pale"));
+			}
+		});
+		facets.put("geoDistance", new Factory() {
+			FacetBuilder build() {
+				return FacetBuilders.geoDistanceFacet(FACET)
+						.field("location")
+						.point(48.8566, 2.3522)
+						.addUnboundedFrom(10)
+						.addRange(10, 20)
+						.addRange(20, 100)
+						.addUnboundedTo(100)
+						.unit(DistanceUnit.KILOMETERS);
+			}
+		});
+
+		FACETS = Collections.unmodifiableMap(facets);
+	}
+
+	/**
+	 * @return all facet names
+	 */
+	public static Set<String> names() {
+		return FACETS.keySet();
+	}
+
+	/**
+	 * @param name facet name in the catalog
+	 * @return a new facet
+	 */
+	public static FacetBuilder facet(String name) {
+		Factory factory = FACETS.get(name);
+		if (factory == null) {
+			throw new IllegalArgumentException("Unknown facet [" + name + "]. Known facets are " + names());
+		}
+		return factory.build();
+	}
+}
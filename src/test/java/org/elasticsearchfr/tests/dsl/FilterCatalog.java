@@ -0,0 +1,161 @@
+package org.elasticsearchfr.tests.dsl;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.elasticsearch.common.geo.GeoDistance;
+import org.elasticsearch.common.unit.DistanceUnit;
+import org.elasticsearch.index.query.FilterBuilder;
+import org.elasticsearch.index.query.FilterBuilders;
+
+/**
+ * Filters built in {@link org.elasticsearchfr.tests.ES006AllFiltersTest}, by name, so
+ * benchmarks can run the same filters on a beer corpus with and without cache.
+ * <br>Filters are created on each call as the cache flag is set on the builder.
+ * <br>Geo filters are centred on Paris, the biggest location cluster of generated beers.
+ */
+public class FilterCatalog {
+
+	/**
+	 * Build a filter with a given cache flag
+	 */
+	private static abstract class Factory {
+		abstract FilterBuilder build(boolean cache);
+	}
+
+	private static final Map<String, Factory> FILTERS;
+
+	static {
+		Map<String, Factory> filters = new LinkedHashMap<String, Factory>();
+
+		filters.put("term", new Factory() {
+			FilterBuilder build(boolean cache) {
+				return FilterBuilders.termFilter("brand", "heineken").cache(cache);
+			}
+		});
+		for (final String execution : new String[] {"plain", "bool", "and", "or"}) {
+			filters.put("terms_" + execution, new Factory() {
+				FilterBuilder build(boolean cache) {
+					return FilterBuilders.termsFilter("brand", "heineken", "kriek").execution(execution).cache(cache);
+				}
+			});
+		}
+		filters.put("range", new Factory() {
+			FilterBuilder build(boolean cache) {
+				return FilterBuilders.rangeFilter("price").from(1).to(2).includeLower(true).includeUpper(false).cache(cache);
+			}
+		});
+		filters.put("numericRange", new Factory() {
+			FilterBuilder build(boolean cache) {
+				return FilterBuilders.numericRangeFilter("price").from(1).to(2).includeLower(true).includeUpper(false).cache(cache);
+			}
+		});
+		filters.put("prefix", new Factory() {
+			FilterBuilder build(boolean cache) {
+				return FilterBuilders.prefixFilter("brand", "he").cache(cache);
+			}
+		});
+		filters.put("script", new Factory() {
+			FilterBuilder build(boolean cache) {
+				return FilterBuilders.scriptFilter("doc['price'].value > param1").addParam("param1", 5).cache(cache);
+			}
+		});
+		filters.put("bool", new Factory() {
+			FilterBuilder build(boolean cache) {
+				return FilterBuilders.boolFilter()
+						.must(FilterBuilders.termFilter("brand", "heineken"))
+						.mustNot(FilterBuilders.rangeFilter("price").from(1).to(2))
+						.should(FilterBuilders.termFilter("colour", "dark"))
+						.should(FilterBuilders.termFilter("colour", "pale"))
+						.cache(cache);
+			}
+		});
+		filters.put("and", new Factory() {
+			FilterBuilder build(boolean cache) {
+				return FilterBuilders.andFilter(
+						FilterBuilders.rangeFilter("price").from(1).to(2),
+						FilterBuilders.prefixFilter("brand", "hei")
+				).cache(cache);
+			}
+		});
+		filters.put("or", new Factory() {
+			FilterBuilder build(boolean cache) {
+				return FilterBuilders.orFilter(
+						FilterBuilders.termFilter("colour", "dark"),
+						FilterBuilders.termFilter("colour", "pale")
+				).cache(cache);
+			}
+		});
+		filters.put("not", new Factory() {
+			FilterBuilder build(boolean cache) {
+				return FilterBuilders.notFilter(FilterBuilders.rangeFilter("price").from(1).to(2)).cache(cache);
+			}
+		});
+		filters.put("geoBoundingBox", new Factory() {
+			FilterBuilder build(boolean cache) {
+				return FilterBuilders.geoBoundingBoxFilter("location")
+						.topLeft(49.2, 1.8)
+						.bottomRight(48.5, 2.9)
+						.cache(cache);
+			}
+		});
+		for (final String optimizeBbox : new String[] {"memory", "indexed", "none"}) {
+			filters.put("geoDistance_" + optimizeBbox, new Factory() {
+				FilterBuilder build(boolean cache) {
+					return FilterBuilders.geoDistanceFilter("location")
+							.point(48.8566, 2.3522)
+							.distance(50, DistanceUnit.KILOMETERS)
+							.optimizeBbox(optimizeBbox)
+							.geoDistance(GeoDistance.ARC)
+							.cache(cache);
+				}
+			});
+		}
+		filters.put("geoDistanceRange", new Factory() {
+			FilterBuilder build(boolean cache) {
+				return FilterBuilders.geoDistanceRangeFilter("location")
+						.point(48.8566, 2.3522)
+						.from("200km")
+						.to("400km")
+						.includeLower(true)
+						.includeUpper(false)
+						.optimizeBbox("memory")
+						.geoDistance(GeoDistance.ARC)
+						.cache(cache);
+			}
+		});
+		filters.put("geoPolygon", new Factory() {
+			FilterBuilder build(boolean cache) {
+				return FilterBuilders.geoPolygonFilter("location")
+						.addPoint(53.5, 4.5)
+						.addPoint(50, 2)
+						.addPoint(50, 7)
+						.cache(cache);
+			}
+		});
+
+		FILTERS = Collections.unmodifiableMap(filters);
+	}
+
+	/**
+	 * @return all filter names
+	 */
+	public static Set<String> names() {
+		return FILTERS.keySet();
+	}
+
+	/**
+	 * @param name filter name
+	 * @param cache true if Elasticsearch should cache the filter
+	 * @return a new filter
+	 */
+	public static FilterBuilder filter(String name, boolean cache) {
+		Factory factory = FILTERS.get(name);
+		if (factory == null) {
+			throw new IllegalArgumentException("Unknown filter [" + name + "]. Known filters are " + names());
+		}
+		return factory.build(cache);
+	}
+}
@@ -0,0 +1,268 @@
+package org.elasticsearchfr.tests.dsl;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.elasticsearch.index.query.FilterBuilders;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+
+/**
+ * Queries built in {@link org.elasticsearchfr.tests.ES005AllQueriesTest}, by name, so
+ * benchmarks and load drivers can run the same Query DSL constructions on a beer corpus.
+ * <br>Parent/child, nested and geo shape queries are not listed here as they need
+ * their own mappings.
+ * <br>Queries are created on each call: callers can modify them without changing other callers' queries.
+ */
+public class QueryCatalog {
+
+	/**
+	 * Build a query
+	 */
+	private static abstract class Factory {
+		abstract QueryBuilder build();
+	}
+
+	private static final Map<String, Factory> QUERIES;
+
+	static {
+		Map<String, Factory> queries = new LinkedHashMap<String, Factory>();
+
+		queries.put("matchAll", new Factory() {
+			QueryBuilder build() {
+				return QueryBuilders.matchAllQuery();
+			}
+		});
+		queries.put("term", new Factory() {
+			QueryBuilder build() {
+				return QueryBuilders.termQuery("brand", "heineken");
+			}
+		});
+		queries.put("match", new Factory() {
+			QueryBuilder build() {
+				return QueryBuilders.matchQuery("brand", "HEINEKEN is a beer");
+			}
+		});
+		queries.put("queryString", new Factory() {
+			QueryBuilder build() {
+				return QueryBuilders.queryString("HEINEKEN");
+			}
+		});
+		queries.put("range", new Factory() {
+			QueryBuilder build() {
+				return QueryBuilders.rangeQuery("price").from(5).to(10);
+			}
+		});
+		queries.put("boolMatchRange", new Factory() {
+			QueryBuilder build() {
+				return QueryBuilders.boolQuery()
+						.must(QueryBuilders.matchQuery("brand", "HEINEKEN"))
+						.must(QueryBuilders.rangeQuery("price").from(5).to(10));
+			}
+		});
+		queries.put("filtered", new Factory() {
+			QueryBuilder build() {
+				return QueryBuilders.filteredQuery(
+						QueryBuilders.boolQuery()
+								.must(QueryBuilders.matchQuery("brand", "HEINEKEN"))
+								.must(QueryBuilders.rangeQuery("price").from(5).to(10)),
+						FilterBuilders.rangeFilter("size").from(1));
+			}
+		});
+		queries.put("google", new Factory() {
+			QueryBuilder build() {
+				return QueryBuilders.queryString("HEINEKEN pale");
+			}
+		});
+		queries.put("googleWithBoost", new Factory() {
+			QueryBuilder build() {
+				return QueryBuilders.queryString("HEINEKEN pale^3");
+			}
+		});
+		queries.put("fuzzy", new Factory() {
+			QueryBuilder build() {
+				return QueryBuilders.fuzzyQuery("brand", "heinezken");
+			}
+		});
+		queries.put("multiMatch", new Factory() {
+			QueryBuilder build() {
+				return QueryBuilders.multiMatchQuery("heineken pale", "brand", "colour");
+			}
+		});
+		queries.put("boosting", new Factory() {
+			QueryBuilder build() {
+				return QueryBuilders.boostingQuery()
+						.positive(QueryBuilders.termQuery("brand", "heineken"))
+						.negative(QueryBuilders.termQuery("colour", "pale"))
+						.negativeBoost(0.2f);
+			}
+		});
+		queries.put("ids", new Factory() {
+			QueryBuilder build() {
+				return QueryBuilders.idsQuery().ids("beer_1", "beer_2");
+			}
+		});
+		queries.put("customScore", new Factory() {
+			QueryBuilder build() {
+				return QueryBuilders.customScoreQuery(QueryBuilders.matchAllQuery())
+						.script("_score * doc['price'].value / pow(param1, param2)")
+						.param("param1", 2)
+						.param("param2", 3.1);
+			}
+		});
+		queries.put("customBoostFactor", new Factory() {
+			QueryBuilder build() {
+				return QueryBuilders.customBoostFactorQuery(QueryBuilders.matchAllQuery()).boostFactor(3.1f);
+			}
+		});
+		queries.put("constantScore", new Factory() {
+			QueryBuilder build() {
+				return QueryBuilders.constantScoreQuery(FilterBuilders.termFilter("brand", "heineken")).boost(2.0f);
+			}
+		});
+		queries.put("disMax", new Factory() {
+			QueryBuilder build() {
+				return QueryBuilders.disMaxQuery()
+						.add(QueryBuilders.termQuery("brand", "heineken"))
+						.add(QueryBuilders.termQuery("colour", "pale"))
+						.boost(1.2f)
+						.tieBreaker(0.7f);
+			}
+		});
+		queries.put("field", new Factory() {
+			QueryBuilder build() {
+				return QueryBuilders.fieldQuery("brand", "+heineken -grimbergen");
+			}
+		});
+		queries.put("fuzzyLikeThis", new Factory() {
+			QueryBuilder build() {
+				return QueryBuilders.fuzzyLikeThisQuery("brand", "colour")
+						.likeText("heineken is a pale beer")
+						.maxQueryTerms(12);
+			}
+		});
+		queries.put("fuzzyLikeThisField", new Factory() {
+			QueryBuilder build() {
+				return QueryBuilders.fuzzyLikeThisFieldQuery("brand")
+						.likeText("Heineken is a pale beer")
+						.maxQueryTerms(12);
+			}
+		});
+		queries.put("moreLikeThis", new Factory() {
+			QueryBuilder build() {
+				return QueryBuilders.moreLikeThisQuery("brand", "color")
+						.likeText("heineken is a pale beer")
+						.minTermFreq(1)
+						.maxQueryTerms(12);
+			}
+		});
+		queries.put("moreLikeThisField", new Factory() {
+			QueryBuilder build() {
+				return QueryBuilders.moreLikeThisFieldQuery("brand")
+						.likeText("Heineken is a pale beer")
+						.minTermFreq(1)
+						.maxQueryTerms(12);
+			}
+		});
+		queries.put("prefix", new Factory() {
+			QueryBuilder build() {
+				return QueryBuilders.prefixQuery("brand", "heine");
+			}
+		});
+		queries.put("spanFirst", new Factory() {
+			QueryBuilder build() {
+				return QueryBuilders.spanFirstQuery(QueryBuilders.spanTermQuery("brand", "heineken"), 3);
+			}
+		});
+		queries.put("spanNear", new Factory() {
+			QueryBuilder build() {
+				return QueryBuilders.spanNearQuery()
+						.clause(QueryBuilders.spanTermQuery("brand", "heineken"))
+						.clause(QueryBuilders.spanTermQuery("brand", "kriek"))
+						.clause(QueryBuilders.spanTermQuery("brand", "grimbergen"))
+						.slop(12)
+						.inOrder(false)
+						.collectPayloads(false);
+			}
+		});
+		queries.put("spanNot", new Factory() {
+			QueryBuilder build() {
+				return QueryBuilders.spanNotQuery()
+						.include(QueryBuilders.spanTermQuery("brand", "heineken"))
+						.exclude(QueryBuilders.spanTermQuery("brand", "kriek"));
+			}
+		});
+		queries.put("spanOr", new Factory() {
+			QueryBuilder build() {
+				return QueryBuilders.spanOrQuery()
+						.clause(QueryBuilders.spanTermQuery("brand", "heineken"))
+						.clause(QueryBuilders.spanTermQuery("brand", "grimbergen"))
+						.clause(QueryBuilders.spanTermQuery("brand", "kriek"));
+			}
+		});
+		queries.put("spanTerm", new Factory() {
+			QueryBuilder build() {
+				return QueryBuilders.spanTermQuery("brand", "heineken");
+			}
+		});
+		queries.put("terms", new Factory() {
+			QueryBuilder build() {
+				return QueryBuilders.termsQuery("brand", "heineken", "kriek").minimumMatch(1);
+			}
+		});
+		queries.put("wildcard", new Factory() {
+			QueryBuilder build() {
+				return QueryBuilders.wildcardQuery("brand", "hein?k*");
+			}
+		});
+		queries.put("customFiltersScore", new Factory() {
+			QueryBuilder build() {
+				return QueryBuilders.customFiltersScoreQuery(QueryBuilders.matchAllQuery())
+						.add(FilterBuilders.rangeFilter("price").from(0).to(3), 3)
+						.add(FilterBuilders.rangeFilter("price").from(3).to(20), 2)
+						.scoreMode("first");
+			}
+		});
+		queries.put("indices", new Factory() {
+			QueryBuilder build() {
+				return QueryBuilders.indicesQuery(QueryBuilders.termQuery("tag", "wow"), "beer", "beer")
+						.noMatchQuery(QueryBuilders.termQuery("brand", "heineken"));
+			}
+		});
+		queries.put("indicesAll", new Factory() {
+			QueryBuilder build() {
+				return QueryBuilders.indicesQuery(QueryBuilders.termQuery("tag", "wow"), "beer", "beer")
+						.noMatchQuery("all");
+			}
+		});
+		queries.put("indicesNone", new Factory() {
+			QueryBuilder build() {
+				return QueryBuilders.indicesQuery(QueryBuilders.termQuery("tag", "wow"), "beer", "beer")
+						.noMatchQuery("none");
+			}
+		});
+
+		QUERIES = Collections.unmodifiableMap(queries);
+	}
+
+	/**
+	 * @return all query names, in ES005 order
+	 */
+	public static Set<String> names() {
+		return QUERIES.keySet();
+	}
+
+	/**
+	 * @param name query name
+	 * @return a new query
+	 */
+	public static QueryBuilder query(String name) {
+		Factory factory = QUERIES.get(name);
+		if (factory == null) {
+			throw new IllegalArgumentException("Unknown query [" + name + "]. Known queries are " + names());
+		}
+		return factory.build();
+	}
+}
@@ -0,0 +1,188 @@
+package org.elasticsearchfr.tests.helper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.elasticsearch.ElasticSearchTimeoutException;
+import org.elasticsearch.action.ActionFuture;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.support.PlainActionFuture;
+import org.elasticsearch.client.Client;
+
+/**
+ * Send searches without blocking a thread per request.
+ * <ul>
+ * <li>Searches are sent with an {@link ActionListener}: the caller thread only waits
+ * when <code>maxOutstanding</code> searches are already in flight.</li>
+ * <li>Results come back through listeners or futures. {@link #searchAll(List)} gives
+ * one future for many searches.</li>
+ * </ul>
+ * Each listener is called once, even if it throws.
+ * <br>Thread safe.
+ * <pre>
+ * AsyncSearchClient async = new AsyncSearchClient(client, 64);
+ * ActionFuture&lt;List&lt;SearchResponse&gt;&gt; all = async.searchAll(requests);
+ * for (SearchResponse sr : all.actionGet()) ...
+ * </pre>
+ */
+public class AsyncSearchClient {
+
+	private final Client client;
+	private final int maxOutstanding;
+	private final Semaphore outstanding;
+
+	/**
+	 * @param client client used to send searches
+	 * @param maxOutstanding maximum number of searches in flight (at least 1)
+	 */
+	public AsyncSearchClient(Client client, int maxOutstanding) {
+		this.client = client;
+		this.maxOutstanding = Math.max(1, maxOutstanding);
+		this.outstanding = new Semaphore(this.maxOutstanding);
+	}
+
+	/**
+	 * Send a search. Blocks while <code>maxOutstanding</code> searches are in flight.
+	 * <br>The listener is called by an elasticsearch thread: it must not block.
+	 * @param request
+	 * @param listener
+	 * @throws InterruptedException if interrupted while waiting for a free slot
+	 */
+	public void search(SearchRequest request, final ActionListener<SearchResponse> listener) throws InterruptedException {
+		outstanding.acquire();
+		send(request, listener);
+	}
+
+	/**
+	 * Send a search if a slot is free, waiting at most <code>timeout</code>.
+	 * @param request
+	 * @param listener
+	 * @param timeout
+	 * @param unit
+	 * @return false if no slot was free: the search is not sent and the listener is not called
+	 * @throws InterruptedException if interrupted while waiting for a free slot
+	 */
+	public boolean trySearch(SearchRequest request, final ActionListener<SearchResponse> listener,
+			long timeout, TimeUnit unit) throws InterruptedException {
+		if (!outstanding.tryAcquire(timeout, unit)) {
+			return false;
+		}
+		send(request, listener);
+		return true;
+	}
+
+	/**
+	 * Send a search. Blocks while <code>maxOutstanding</code> searches are in flight.
+	 * @param request
+	 * @return the future response
+	 * @throws InterruptedException if interrupted while waiting for a free slot
+	 */
+	public ActionFuture<SearchResponse> search(SearchRequest request) throws InterruptedException {
+		PlainActionFuture<SearchResponse> future = PlainActionFuture.newFuture();
+		search(request, future);
+		return future;
+	}
+
+	/**
+	 * Send many searches and compose their responses.
+	 * <br>Blocks while <code>maxOutstanding</code> searches are in flight, so a list
+	 * longer than <code>maxOutstanding</code> is pipelined.
+	 * @param requests
+	 * @return a future holding responses in the same order as requests. It fails with the
+	 * first failure.
+	 * @throws InterruptedException if interrupted while waiting for a free slot
+	 */
+	public ActionFuture<List<SearchResponse>> searchAll(List<SearchRequest> requests) throws InterruptedException {
+		final PlainActionFuture<List<SearchResponse>> future = PlainActionFuture.newFuture();
+		if (requests.isEmpty()) {
+			future.onResponse(new ArrayList<SearchResponse>());
+			return future;
+		}
+
+		final AtomicReferenceArray<SearchResponse> responses = new AtomicReferenceArray<SearchResponse>(requests.size());
+		final AtomicInteger remaining = new AtomicInteger(requests.size());
+		final AtomicBoolean failed = new AtomicBoolean();
+
+		for (int i = 0; i < requests.size(); i++) {
+			final int slot = i;
+			search(requests.get(i), new ActionListener<SearchResponse>() {
+				public void onResponse(SearchResponse response) {
+					responses.set(slot, response);
+					if (remaining.decrementAndGet() == 0 && !failed.get()) {
+						SearchResponse[] all = new SearchResponse[responses.length()];
+						for (int j = 0; j < all.length; j++) {
+							all[j] = responses.get(j);
+						}
+						future.onResponse(Arrays.asList(all));
+					}
+				}
+
+				public void onFailure(Throwable e) {
+					remaining.decrementAndGet();
+					if (failed.compareAndSet(false, true)) {
+						future.onFailure(e);
+					}
+				}
+			});
+		}
+		return future;
+	}
+
+	/**
+	 * Wait until no search is in flight
+	 * @param timeout
+	 * @param unit
+	 * @throws InterruptedException
+	 * @throws ElasticSearchTimeoutException if searches are still in flight after timeout
+	 */
+	public void awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+		if (!outstanding.tryAcquire(maxOutstanding, timeout, unit)) {
+			throw new ElasticSearchTimeoutException("Searches still in flight after " + unit.toMillis(timeout) + " ms");
+		}
+		outstanding.release(maxOutstanding);
+	}
+
+	/**
+	 * @return number of searches in flight
+	 */
+	public int outstanding() {
+		return maxOutstanding - outstanding.availablePermits();
+	}
+
+	private void send(SearchRequest request, final ActionListener<SearchResponse> listener) {
+		// If the caller listener throws in onResponse, elasticsearch calls onFailure on the same
+		// listener: the slot must be released, and the caller notified, only once
+		final AtomicBoolean done = new AtomicBoolean();
+		try {
+			client.search(request, new ActionListener<SearchResponse>() {
+				public void onResponse(SearchResponse response) {
+					if (done.compareAndSet(false, true)) {
+						outstanding.release();
+						listener.onResponse(response);
+					}
+				}
+
+				public void onFailure(Throwable e) {
+					if (done.compareAndSet(false, true)) {
+						outstanding.release();
+						listener.onFailure(e);
+					}
+				}
+			});
+		} catch (RuntimeException e) {
+			// The request was not sent: no listener call will release the slot
+			if (done.compareAndSet(false, true)) {
+				outstanding.release();
+				listener.onFailure(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package org.elasticsearchfr.tests.helper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testing asynchronous searches
+ */
+public class AsyncSearchClientTest extends TestNodeHelper {
+
+	private String index;
+
+	@Before
+	public void setUp() throws Exception {
+		index = readOnlyCorpus(MEAL);
+	}
+
+	@Test
+	public void searchAllInOrder() throws Exception {
+		AsyncSearchClient async = new AsyncSearchClient(client(), 4);
+
+		List<SearchRequest> requests = new ArrayList<SearchRequest>();
+		for (int i = 0; i < 20; i++) {
+			requests.add(client().prepareSearch(index)
+					.setQuery(QueryBuilders.matchAllQuery())
+					.setFrom(i)
+					.setSize(1)
+					.request());
+		}
+
+		List<SearchResponse> responses = async.searchAll(requests).actionGet();
+		Assert.assertEquals(20, responses.size());
+		for (int i = 1; i < responses.size(); i++) {
+			// Pages follow each other: responses are in the order of requests
+			Assert.assertFalse(responses.get(i).getHits().getAt(0).getId()
+					.equals(responses.get(i - 1).getHits().getAt(0).getId()));
+		}
+
+		async.awaitIdle(10, TimeUnit.SECONDS);
+		Assert.assertEquals(0, async.outstanding());
+	}
+
+	@Test
+	public void throwingListenerIsCalledOnce() throws Exception {
+		AsyncSearchClient async = new AsyncSearchClient(client(), 1);
+		final AtomicInteger calls = new AtomicInteger();
+
+		async.search(client().prepareSearch(index).setQuery(QueryBuilders.matchAllQuery()).request(),
+				new ActionListener<SearchResponse>() {
+					public void onResponse(SearchResponse response) {
+						calls.incrementAndGet();
+						throw new IllegalStateException("listener bug");
+					}
+
+					public void onFailure(Throwable e) {
+						calls.incrementAndGet();
+					}
+				});
+
+		async.awaitIdle(10, TimeUnit.SECONDS);
+		Thread.sleep(100);
+		Assert.assertEquals(1, calls.get());
+		// The slot was released once: the cap is still 1
+		Assert.assertEquals(0, async.outstanding());
+	}
+}
@@ -0,0 +1,222 @@
+package org.elasticsearchfr.tests.helper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.ESLoggerFactory;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearchfr.tests.bean.BeerCodec.Format;
+import org.elasticsearchfr.tests.bean.BeerGenerator;
+
+/**
+ * A corpus of random beers. Beers are generated from a seed so the
+ * same corpus always holds the same beers.
+ * <br>Document ids are <code>beer_0</code> to <code>beer_(size-1)</code>
+ * <br>Sources are JSON unless {@link #format(Format)} says otherwise.
+ * <br><code>location</code> is mapped as a <code>geo_point</code> and <code>ingredients</code> as nested
+ * documents, unless {@link #nested(boolean)} flattens them (see {@link #mapping(boolean)}).
+ */
+public class BeerCorpus implements Corpus {
+	private static final ESLogger logger = ESLoggerFactory.getLogger(BeerCorpus.class.getName());
+
+	public static final String TYPE = "beer";
+
+	private static final int BULK_SIZE = 5000;
+
+	/**
+	 * Under this size, beers are generated by one thread only
+	 */
+	private static final int PARALLEL_SIZE = 100000;
+
+	private final String name;
+	private final int size;
+	private final BeerGenerator generator;
+	private Format format = Format.JSON;
+	private boolean nested = true;
+
+	/**
+	 * @param name
+	 * @param size number of beers
+	 * @param seed random seed
+	 */
+	public BeerCorpus(String name, int size, long seed) {
+		this(name, size, new BeerGenerator(seed));
+	}
+
+	/**
+	 * @param name
+	 * @param size number of beers
+	 * @param seed random seed
+	 * @param brands number of distinct brands (see {@link BeerGenerator#brands(int)})
+	 */
+	public BeerCorpus(String name, int size, long seed, int brands) {
+		this(name, size, new BeerGenerator(seed).brands(brands));
+	}
+
+	/**
+	 * @param name
+	 * @param size number of beers
+	 * @param generator generator used to create beers
+	 */
+	public BeerCorpus(String name, int size, BeerGenerator generator) {
+		this.name = name;
+		this.size = size;
+		this.generator = generator;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Send sources as JSON or SMILE
+	 * @param format
+	 * @return this corpus
+	 */
+	public BeerCorpus format(Format format) {
+		this.format = format;
+		return this;
+	}
+
+	/**
+	 * Map ingredients as nested documents (the default) or as a flattened object
+	 * @param nested
+	 * @return this corpus
+	 */
+	public BeerCorpus nested(boolean nested) {
+		this.nested = nested;
+		return this;
+	}
+
+	/**
+	 * @return true if ingredients are nested documents
+	 */
+	public boolean isNested() {
+		return nested;
+	}
+
+	public String getKey() {
+		String key = name + "_" + size + "_" + generator.getKey();
+		if (format != Format.JSON) {
+			key += "_" + format;
+		}
+		if (!nested) {
+			key += "_object";
+		}
+		return key.toLowerCase();
+	}
+
+	/**
+	 * @return the number of beers
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * @return the format of sources
+	 */
+	public Format getFormat() {
+		return format;
+	}
+
+	/**
+	 * @return the generator used to create beers
+	 */
+	public BeerGenerator getGenerator() {
+		return generator;
+	}
+
+	public void create(Client client, String index) throws Exception {
+		client.admin().indices().prepareCreate(index).addMapping(TYPE, mapping(nested)).execute().actionGet();
+	}
+
+	/**
+	 * @return the beer type mapping, with nested ingredients
+	 * @throws Exception
+	 */
+	public static XContentBuilder mapping() throws Exception {
+		return mapping(true);
+	}
+
+	/**
+	 * Beers are mapped dynamically but for:
+	 * <ul>
+	 * <li>their location: a geo_point indexed with lat/lon numeric fields so geo distance filters
+	 * can use <code>optimize_bbox: indexed</code></li>
+	 * <li>their ingredients: nested documents, so a nested query matches name and count of the
+	 * same ingredient. As an object, ingredient fields are flattened in the beer: <code>ingredients.name</code>
+	 * and <code>ingredients.count</code> of different ingredients can match together.</li>
+	 * </ul>
+	 * @param nested true to map ingredients as nested documents, false as an object
+	 * @return the beer type mapping
+	 * @throws Exception
+	 */
+	public static XContentBuilder mapping(boolean nested) throws Exception {
+		return XContentFactory.jsonBuilder()
+				.startObject()
+					.startObject(TYPE)
+						.startObject("properties")
+							.startObject("location")
+								.field("type", "geo_point")
+								.field("lat_lon", true)
+							.endObject()
+							.startObject("ingredients")
+								.field("type", nested ? "nested" : "object")
+								.startObject("properties")
+									.startObject("name").field("type", "string").endObject()
+									.startObject("count").field("type", "integer").endObject()
+								.endObject()
+							.endObject()
+						.endObject()
+					.endObject()
+				.endObject();
+	}
+
+	public void load(Client client, final String index) throws Exception {
+		int parts = size < PARALLEL_SIZE ? 1 : Runtime.getRuntime().availableProcessors();
+		final long[] bounds = BeerGenerator.split(size, parts);
+		final BulkLoader loader = BulkLoader.builder(client)
+				.actions(BULK_SIZE)
+				.concurrentRequests(parts)
+				.build();
+
+		ExecutorService executor = Executors.newFixedThreadPool(parts);
+		try {
+			List<Future<Void>> futures = new ArrayList<Future<Void>>();
+			for (int i = 0; i < parts; i++) {
+				final int part = i;
+				futures.add(executor.submit(new Callable<Void>() {
+					public Void call() throws Exception {
+						generator.generate(bounds[part], bounds[part + 1], new BulkBeerSink(loader, index, format));
+						return null;
+					}
+				}));
+			}
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+			loader.close();
+		}
+
+		BulkLoader.Stats stats = loader.stats();
+		logger.debug("Corpus [{}] loaded: {}", this, stats);
+		if (stats.getFailures() > 0) {
+			throw new Exception("Could not index " + stats.getFailures() + " beers in [" + index + "]");
+		}
+	}
+
+	@Override
+	public String toString() {
+		return getKey();
+	}
+}
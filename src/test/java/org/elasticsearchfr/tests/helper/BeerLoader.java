@@ -0,0 +1,59 @@
+package org.elasticsearchfr.tests.helper;
+
+import org.elasticsearch.client.transport.TransportClient;
+import org.elasticsearch.common.transport.InetSocketTransportAddress;
+import org.elasticsearch.indices.IndexAlreadyExistsException;
+import org.elasticsearchfr.tests.bean.BeerCodec.Format;
+import org.elasticsearchfr.tests.bean.BeerGenerator;
+
+/**
+ * Standalone loader: index generated beers into a running cluster.
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.elasticsearchfr.tests.helper.BeerLoader \
+ *     -Dexec.args="localhost:9300 meal 1000000 42 4 smile"
+ * </pre>
+ * Arguments are host:port, index, number of beers, seed (0), concurrent bulks (number of processors)
+ * and source format (json or smile).
+ * <br>The cluster name comes from elasticsearch.yml. Use <code>-Des.cluster.name</code> to change it.
+ * <br>A missing index is created with the beer mapping (see {@link BeerCorpus#mapping()}).
+ */
+public class BeerLoader {
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 3) {
+			System.err.println("Usage: BeerLoader host:port index size [seed] [concurrency] [json|smile]");
+			System.exit(1);
+		}
+
+		String[] address = args[0].split(":");
+		String index = args[1];
+		int size = Integer.parseInt(args[2]);
+		long seed = args.length > 3 ? Long.parseLong(args[3]) : 0L;
+		int concurrency = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+		Format format = args.length > 5 ? Format.valueOf(args[5].toUpperCase()) : Format.JSON;
+
+		TransportClient client = new TransportClient()
+				.addTransportAddress(new InetSocketTransportAddress(address[0], Integer.parseInt(address[1])));
+		try {
+			try {
+				client.admin().indices().prepareCreate(index).addMapping(BeerCorpus.TYPE, BeerCorpus.mapping())
+						.execute().actionGet();
+			} catch (IndexAlreadyExistsException e) {
+				// We add beers to an existing index
+			}
+
+			BulkLoader loader = BulkLoader.builder(client)
+					.actions(5000)
+					.concurrentRequests(concurrency)
+					.build();
+			new BeerGenerator(seed).generate(0, size, new BulkBeerSink(loader, index, format));
+			loader.close();
+
+			client.admin().indices().prepareRefresh(index).execute().actionGet();
+			System.out.println(loader.stats());
+		} finally {
+			client.close();
+		}
+	}
+}
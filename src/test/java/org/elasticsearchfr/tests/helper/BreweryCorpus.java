@@ -0,0 +1,149 @@
+package org.elasticsearchfr.tests.helper;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.ESLoggerFactory;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearchfr.tests.bean.BeerCodec;
+import org.elasticsearchfr.tests.bean.BeerGenerator;
+import org.elasticsearchfr.tests.bean.Colour;
+
+/**
+ * Breweries and their beers, joined with a <code>_parent</code> mapping.
+ * <ul>
+ * <li>Type <code>brewery</code> (parent): <code>brewery_0</code> to <code>brewery_(breweries-1)</code> with
+ * a name, a city and the number of beers they brew.</li>
+ * <li>Type <code>beer</code> (child): beers from a {@link BeerGenerator}, <code>beer_0</code> to
+ * <code>beer_(n-1)</code>. Beers of a brewery have contiguous ids.</li>
+ * </ul>
+ * A brewery has between 1 and <code>2 * fanOut - 1</code> beers, <code>fanOut</code> on average (fanOut must be 1 or more).
+ * Everything only depends on the seed.
+ */
+public class BreweryCorpus implements Corpus {
+	private static final ESLogger logger = ESLoggerFactory.getLogger(BreweryCorpus.class.getName());
+
+	public static final String PARENT_TYPE = "brewery";
+
+	public static final String CHILD_TYPE = BeerCorpus.TYPE;
+
+	private static final int BULK_SIZE = 5000;
+
+	private static final String[] CITIES = {"brussels", "paris", "amsterdam", "munich", "prague", "dublin", "portland"};
+
+	private final String name;
+	private final int breweries;
+	private final int fanOut;
+	private final long seed;
+
+	/**
+	 * @param name
+	 * @param breweries number of breweries
+	 * @param fanOut mean number of beers per brewery
+	 * @param seed random seed
+	 */
+	public BreweryCorpus(String name, int breweries, int fanOut, long seed) {
+		this.name = name;
+		this.breweries = breweries;
+		this.fanOut = fanOut;
+		this.seed = seed;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getKey() {
+		return (name + "_" + breweries + "_" + fanOut + "_" + seed).toLowerCase();
+	}
+
+	/**
+	 * @return the number of breweries
+	 */
+	public int getBreweries() {
+		return breweries;
+	}
+
+	/**
+	 * @return the mean number of beers per brewery
+	 */
+	public int getFanOut() {
+		return fanOut;
+	}
+
+	public void create(Client client, String index) throws Exception {
+		client.admin().indices().prepareCreate(index)
+				.addMapping(PARENT_TYPE, XContentFactory.jsonBuilder().startObject().startObject(PARENT_TYPE).endObject().endObject())
+				.addMapping(CHILD_TYPE, childMapping())
+				.execute().actionGet();
+	}
+
+	/**
+	 * @return the beer mapping (see {@link BeerCorpus#mapping()}) with a brewery as parent
+	 * @throws Exception
+	 */
+	@SuppressWarnings("unchecked")
+	private static XContentBuilder childMapping() throws Exception {
+		String beer = BeerCorpus.mapping().string();
+		Map<String, Object> mapping = XContentFactory.xContent(beer).createParser(beer).mapOrderedAndClose();
+		Map<String, Object> parent = new HashMap<String, Object>();
+		parent.put("type", PARENT_TYPE);
+		((Map<String, Object>) mapping.get(CHILD_TYPE)).put("_parent", parent);
+		return XContentFactory.jsonBuilder().map(mapping);
+	}
+
+	public void load(Client client, final String index) throws Exception {
+		final BulkLoader loader = BulkLoader.builder(client)
+				.actions(BULK_SIZE)
+				.build();
+		long beers = 0;
+		try {
+			BeerGenerator generator = new BeerGenerator(seed);
+			for (int i = 0; i < breweries; i++) {
+				Random random = random(i);
+				String city = CITIES[random.nextInt(CITIES.length)];
+				int count = 1 + random.nextInt(2 * fanOut - 1);
+
+				final String parent = "brewery_" + i;
+				loader.add(new IndexRequest(index, PARENT_TYPE, parent).source(XContentFactory.jsonBuilder()
+						.startObject()
+							.field("name", parent)
+							.field("city", city)
+							.field("beers", count)
+						.endObject()));
+
+				generator.generate(beers, beers + count, new BeerGenerator.BeerSink() {
+					public void beer(long id, String brand, Colour colour, double size, double price, long date,
+							double lat, double lon, String[] ingredients, int[] counts) throws IOException {
+						byte[] source = BeerCodec.local().encode(brand, colour, size, price, date, lat, lon, ingredients, counts);
+						loader.add(new IndexRequest(index, CHILD_TYPE, "beer_" + id).parent(parent).source(source));
+					}
+				});
+				beers += count;
+			}
+		} finally {
+			loader.close();
+		}
+
+		BulkLoader.Stats stats = loader.stats();
+		logger.debug("Corpus [{}] loaded: {} breweries, {} beers, {}", this, breweries, beers, stats);
+		if (stats.getFailures() > 0) {
+			throw new Exception("Could not index " + stats.getFailures() + " documents in [" + index + "]");
+		}
+	}
+
+	private Random random(int brewery) {
+		return new Random(seed ^ (brewery * 0x9e3779b97f4a7c15L));
+	}
+
+	@Override
+	public String toString() {
+		return getKey();
+	}
+}
@@ -0,0 +1,46 @@
+package org.elasticsearchfr.tests.helper;
+
+import java.io.IOException;
+
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearchfr.tests.bean.BeerCodec;
+import org.elasticsearchfr.tests.bean.BeerCodec.Format;
+import org.elasticsearchfr.tests.bean.BeerGenerator;
+import org.elasticsearchfr.tests.bean.Colour;
+
+/**
+ * Write generated beers as JSON straight into a {@link BulkLoader}.
+ * <br>Documents are written as JSON or SMILE by the {@link BeerCodec} of the calling thread.
+ * Many sinks can share the same loader.
+ */
+public class BulkBeerSink implements BeerGenerator.BeerSink {
+
+	private final BulkLoader loader;
+	private final String index;
+	private final Format format;
+
+	/**
+	 * @param loader loader sending bulks
+	 * @param index index to write to
+	 */
+	public BulkBeerSink(BulkLoader loader, String index) {
+		this(loader, index, Format.JSON);
+	}
+
+	/**
+	 * @param loader loader sending bulks
+	 * @param index index to write to
+	 * @param format format of the sources
+	 */
+	public BulkBeerSink(BulkLoader loader, String index, Format format) {
+		this.loader = loader;
+		this.index = index;
+		this.format = format;
+	}
+
+	public void beer(long id, String brand, Colour colour, double size, double price, long date,
+			double lat, double lon, String[] ingredients, int[] counts) throws IOException {
+		byte[] source = BeerCodec.local(format).encode(brand, colour, size, price, date, lat, lon, ingredients, counts);
+		loader.add(new IndexRequest(index, BeerCorpus.TYPE, "beer_" + id).source(source));
+	}
+}
@@ -0,0 +1,490 @@
+package org.elasticsearchfr.tests.helper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.ESLoggerFactory;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+
+/**
+ * Index a lot of documents with bulk requests.
+ * <ul>
+ * <li>A bulk is sent when it reaches a number of actions, a size in bytes, or when
+ * the flush interval is elapsed.</li>
+ * <li>At most <code>concurrentRequests</code> bulks are in flight. When they are all
+ * busy, {@link #add(IndexRequest)} blocks until a response comes back.</li>
+ * <li>Items rejected by a busy node (full queue) are sent again (up to <code>maxRetries</code> times)
+ * after a back off. Other failures, such as mapping or parse errors, are counted as failures at once.</li>
+ * <li>{@link #stats()} gives throughput and latency metrics.</li>
+ * </ul>
+ * Thread safe: many threads can add documents to the same loader.
+ * <pre>
+ * BulkLoader loader = BulkLoader.builder(client).actions(5000).concurrentRequests(4).build();
+ * loader.add(new IndexRequest("meal", "beer", "beer_1").source(json));
+ * loader.close();
+ * </pre>
+ */
+public class BulkLoader {
+	private static final ESLogger logger = ESLoggerFactory.getLogger(BulkLoader.class.getName());
+
+	/**
+	 * Build a {@link BulkLoader}
+	 */
+	public static class Builder {
+		private final Client client;
+		private int actions = 1000;
+		private ByteSizeValue bytes = new ByteSizeValue(5, ByteSizeUnit.MB);
+		private TimeValue flushInterval = null;
+		private int concurrentRequests = 1;
+		private int maxRetries = 3;
+		private TimeValue retryBackoff = TimeValue.timeValueMillis(100);
+
+		private Builder(Client client) {
+			this.client = client;
+		}
+
+		/**
+		 * @param actions send a bulk when it has this number of actions (-1 to disable)
+		 */
+		public Builder actions(int actions) {
+			this.actions = actions;
+			return this;
+		}
+
+		/**
+		 * @param bytes send a bulk when it reaches this size (null to disable)
+		 */
+		public Builder bytes(ByteSizeValue bytes) {
+			this.bytes = bytes;
+			return this;
+		}
+
+		/**
+		 * @param flushInterval send pending actions after this time (null to disable)
+		 */
+		public Builder flushInterval(TimeValue flushInterval) {
+			this.flushInterval = flushInterval;
+			return this;
+		}
+
+		/**
+		 * @param concurrentRequests maximum number of bulks in flight (at least 1)
+		 */
+		public Builder concurrentRequests(int concurrentRequests) {
+			this.concurrentRequests = Math.max(1, concurrentRequests);
+			return this;
+		}
+
+		/**
+		 * @param maxRetries number of times a rejected item is sent again
+		 */
+		public Builder maxRetries(int maxRetries) {
+			this.maxRetries = maxRetries;
+			return this;
+		}
+
+		/**
+		 * @param retryBackoff time to wait before sending failed items again (doubled on each retry)
+		 */
+		public Builder retryBackoff(TimeValue retryBackoff) {
+			this.retryBackoff = retryBackoff;
+			return this;
+		}
+
+		public BulkLoader build() {
+			return new BulkLoader(this);
+		}
+	}
+
+	/**
+	 * Metrics of a loader
+	 */
+	public static class Stats {
+		private final long docs;
+		private final long failures;
+		private final long retries;
+		private final long bulks;
+		private final long bytes;
+		private final long totalLatencyNanos;
+		private final long maxLatencyNanos;
+		private final long elapsedNanos;
+
+		Stats(long docs, long failures, long retries, long bulks, long bytes,
+				long totalLatencyNanos, long maxLatencyNanos, long elapsedNanos) {
+			this.docs = docs;
+			this.failures = failures;
+			this.retries = retries;
+			this.bulks = bulks;
+			this.bytes = bytes;
+			this.totalLatencyNanos = totalLatencyNanos;
+			this.maxLatencyNanos = maxLatencyNanos;
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		/**
+		 * @return documents successfully indexed (or deleted)
+		 */
+		public long getDocs() {
+			return docs;
+		}
+
+		/**
+		 * @return items which failed after all retries
+		 */
+		public long getFailures() {
+			return failures;
+		}
+
+		/**
+		 * @return items sent again after a failure
+		 */
+		public long getRetries() {
+			return retries;
+		}
+
+		/**
+		 * @return bulks executed (retries included)
+		 */
+		public long getBulks() {
+			return bulks;
+		}
+
+		/**
+		 * @return estimated bytes sent
+		 */
+		public long getBytes() {
+			return bytes;
+		}
+
+		/**
+		 * @return mean bulk latency in ms
+		 */
+		public double getMeanLatencyMillis() {
+			return bulks == 0 ? 0 : totalLatencyNanos / 1000000.0 / bulks;
+		}
+
+		/**
+		 * @return max bulk latency in ms
+		 */
+		public double getMaxLatencyMillis() {
+			return maxLatencyNanos / 1000000.0;
+		}
+
+		/**
+		 * @return documents per second since the loader was created
+		 */
+		public double getDocsPerSecond() {
+			return elapsedNanos == 0 ? 0 : docs * 1000000000.0 / elapsedNanos;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d docs (%.0f docs/s, %d KB) in %d bulks, latency mean %.1f ms max %.1f ms, %d retries, %d failures",
+					docs, getDocsPerSecond(), bytes / 1024, bulks, getMeanLatencyMillis(), getMaxLatencyMillis(), retries, failures);
+		}
+	}
+
+	/**
+	 * @param client client used to send bulks
+	 * @return a builder
+	 */
+	public static Builder builder(Client client) {
+		return new Builder(client);
+	}
+
+	private final Client client;
+	private final int actions;
+	private final long bytes;
+	private final int maxRetries;
+	private final TimeValue retryBackoff;
+
+	private final Semaphore inFlight;
+	private final ScheduledExecutorService scheduler;
+
+	private final Object pendingLock = new Object();
+	private int pending = 0;
+
+	private final long start = System.nanoTime();
+	private volatile long end = 0;
+	private final AtomicLong docs = new AtomicLong();
+	private final AtomicLong failures = new AtomicLong();
+	private final AtomicLong retries = new AtomicLong();
+	private final AtomicLong bulks = new AtomicLong();
+	private final AtomicLong sentBytes = new AtomicLong();
+	private final AtomicLong totalLatency = new AtomicLong();
+	private final AtomicLong maxLatency = new AtomicLong();
+
+	private BulkRequest current = new BulkRequest();
+	private volatile boolean closed = false;
+
+	private BulkLoader(Builder builder) {
+		this.client = builder.client;
+		this.actions = builder.actions;
+		this.bytes = builder.bytes == null ? -1 : builder.bytes.bytes();
+		this.maxRetries = builder.maxRetries;
+		this.retryBackoff = builder.retryBackoff;
+		this.inFlight = new Semaphore(builder.concurrentRequests);
+
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "bulk-loader");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		if (builder.flushInterval != null) {
+			long millis = builder.flushInterval.millis();
+			scheduler.scheduleWithFixedDelay(new Runnable() {
+				public void run() {
+					flush();
+				}
+			}, millis, millis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Add a document to index. Blocks when too many bulks are in flight.
+	 * @param request
+	 * @return this loader
+	 */
+	public BulkLoader add(IndexRequest request) {
+		return internalAdd(request);
+	}
+
+	/**
+	 * Add a document to delete. Blocks when too many bulks are in flight.
+	 * @param request
+	 * @return this loader
+	 */
+	public BulkLoader add(DeleteRequest request) {
+		return internalAdd(request);
+	}
+
+	private BulkLoader internalAdd(ActionRequest request) {
+		BulkRequest full = null;
+		synchronized (this) {
+			if (closed) {
+				throw new IllegalStateException("Bulk loader is closed");
+			}
+			addTo(current, request);
+			if ((actions != -1 && current.numberOfActions() >= actions)
+					|| (bytes != -1 && current.estimatedSizeInBytes() >= bytes)) {
+				full = takeCurrent();
+			}
+		}
+		// Waiting for a free slot must not hold the loader: flush and retries go on meanwhile
+		if (full != null) {
+			execute(full, 0);
+		}
+		return this;
+	}
+
+	/**
+	 * Send pending actions now
+	 */
+	public void flush() {
+		BulkRequest request = null;
+		synchronized (this) {
+			if (current.numberOfActions() > 0) {
+				request = takeCurrent();
+			}
+		}
+		if (request != null) {
+			execute(request, 0);
+		}
+	}
+
+	/**
+	 * Send pending actions and wait for all bulks (and retries) to complete
+	 */
+	public void close() {
+		BulkRequest last = null;
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			if (current.numberOfActions() > 0) {
+				last = takeCurrent();
+			}
+		}
+		if (last != null) {
+			execute(last, 0);
+		}
+
+		synchronized (pendingLock) {
+			while (pending > 0) {
+				try {
+					pendingLock.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+		}
+		// Throughput is measured up to the last response, not up to the call to stats()
+		end = System.nanoTime();
+		scheduler.shutdownNow();
+	}
+
+	/**
+	 * @return current metrics (elapsed time stops when the loader is closed)
+	 */
+	public Stats stats() {
+		long elapsed = (end == 0 ? System.nanoTime() : end) - start;
+		return new Stats(docs.get(), failures.get(), retries.get(), bulks.get(), sentBytes.get(),
+				totalLatency.get(), maxLatency.get(), elapsed);
+	}
+
+	/**
+	 * Replace the current bulk by an empty one and count it as pending. Caller holds the loader monitor.
+	 */
+	private BulkRequest takeCurrent() {
+		BulkRequest request = current;
+		current = new BulkRequest();
+		pendingChanged(1);
+		return request;
+	}
+
+	/**
+	 * Execute a bulk once a slot is free. The caller must have counted it as pending.
+	 */
+	private void execute(final BulkRequest request, final int attempt) {
+		try {
+			inFlight.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			failures.addAndGet(request.numberOfActions());
+			pendingChanged(-1);
+			return;
+		}
+
+		final long startBulk = System.nanoTime();
+		sentBytes.addAndGet(request.estimatedSizeInBytes());
+		bulks.incrementAndGet();
+
+		client.bulk(request, new ActionListener<BulkResponse>() {
+			public void onResponse(BulkResponse response) {
+				try {
+					recordLatency(System.nanoTime() - startBulk);
+
+					List<ActionRequest> rejected = new ArrayList<ActionRequest>();
+					int failed = 0;
+					for (BulkItemResponse item : response.getItems()) {
+						if (item.isFailed()) {
+							failed++;
+							if (rejected(item.getFailureMessage())) {
+								rejected.add(request.requests().get(item.getItemId()));
+							} else {
+								failures.incrementAndGet();
+							}
+							if (logger.isTraceEnabled()) {
+								logger.trace("item [{}] failed: {}", item.getId(), item.getFailureMessage());
+							}
+						}
+					}
+					docs.addAndGet(response.getItems().length - failed);
+					retry(rejected, attempt);
+				} finally {
+					inFlight.release();
+					pendingChanged(-1);
+				}
+			}
+
+			public void onFailure(Throwable e) {
+				try {
+					recordLatency(System.nanoTime() - startBulk);
+					logger.warn("bulk of {} actions failed: {}", request.numberOfActions(), e.getMessage());
+					if (ExceptionsHelper.unwrapCause(e) instanceof EsRejectedExecutionException) {
+						retry(request.requests(), attempt);
+					} else {
+						failures.addAndGet(request.numberOfActions());
+					}
+				} finally {
+					inFlight.release();
+					pendingChanged(-1);
+				}
+			}
+		});
+	}
+
+	private void retry(List<ActionRequest> failed, final int attempt) {
+		if (failed.isEmpty()) {
+			return;
+		}
+		if (attempt >= maxRetries) {
+			failures.addAndGet(failed.size());
+			return;
+		}
+
+		final BulkRequest request = new BulkRequest();
+		for (ActionRequest action : failed) {
+			addTo(request, action);
+		}
+		retries.addAndGet(failed.size());
+		pendingChanged(1);
+
+		// We never block the thread calling the listener: retries are sent by the scheduler
+		long backoff = retryBackoff.millis() << attempt;
+		scheduler.schedule(new Runnable() {
+			public void run() {
+				execute(request, attempt + 1);
+			}
+		}, backoff, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @return true if an item failed because a node was too busy: sending it later may work
+	 */
+	private static boolean rejected(String failureMessage) {
+		return failureMessage != null && failureMessage.contains(EsRejectedExecutionException.class.getSimpleName());
+	}
+
+	private static void addTo(BulkRequest bulk, ActionRequest request) {
+		if (request instanceof IndexRequest) {
+			bulk.add((IndexRequest) request);
+		} else if (request instanceof DeleteRequest) {
+			bulk.add((DeleteRequest) request);
+		} else {
+			throw new IllegalArgumentException("Unsupported bulk action " + request.getClass().getName());
+		}
+	}
+
+	private void recordLatency(long nanos) {
+		totalLatency.addAndGet(nanos);
+		long max;
+		while (nanos > (max = maxLatency.get())) {
+			if (maxLatency.compareAndSet(max, nanos)) {
+				break;
+			}
+		}
+	}
+
+	private void pendingChanged(int delta) {
+		synchronized (pendingLock) {
+			pending += delta;
+			if (pending == 0) {
+				pendingLock.notifyAll();
+			}
+		}
+	}
+}
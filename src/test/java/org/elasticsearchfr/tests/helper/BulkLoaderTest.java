@@ -0,0 +1,124 @@
+package org.elasticsearchfr.tests.helper;
+
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.ESLoggerFactory;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Testing the bulk loader thresholds and metrics
+ */
+public class BulkLoaderTest extends TestNodeHelper {
+	protected final ESLogger logger = ESLoggerFactory.getLogger(this.getClass().getName());
+
+	@Test
+	public void loadWithConcurrentBulks() throws Exception {
+		BulkLoader loader = BulkLoader.builder(node.client())
+				.actions(100)
+				.concurrentRequests(3)
+				.build();
+
+		for (int i = 0; i < 1000; i++) {
+			loader.add(new IndexRequest(index("bulkloader1"), "doc", "doc_" + i).source("{\"number\" : " + i + "}"));
+		}
+		loader.close();
+		node.client().admin().indices().prepareRefresh(index("bulkloader1")).execute().actionGet();
+
+		logger.info("Loader stats: {}", loader.stats());
+		Assert.assertEquals(1000, loader.stats().getDocs());
+		Assert.assertEquals(0, loader.stats().getFailures());
+		Assert.assertEquals(10, loader.stats().getBulks());
+		Assert.assertEquals(1000, node.client().prepareCount(index("bulkloader1")).execute().actionGet().getCount());
+
+		// Closed: throughput does not decrease while we look at it
+		double docsPerSecond = loader.stats().getDocsPerSecond();
+		Thread.sleep(100);
+		Assert.assertEquals(docsPerSecond, loader.stats().getDocsPerSecond(), 0);
+	}
+
+	@Test
+	public void flushAfterInterval() throws Exception {
+		BulkLoader loader = BulkLoader.builder(node.client())
+				.actions(-1)
+				.bytes(null)
+				.flushInterval(TimeValue.timeValueMillis(100))
+				.build();
+
+		for (int i = 0; i < 10; i++) {
+			loader.add(new IndexRequest(index("bulkloader2"), "doc", "doc_" + i).source("{\"number\" : " + i + "}"));
+		}
+
+		// No threshold is reached: only the flush interval can send our documents
+		long end = System.currentTimeMillis() + 10000;
+		while (loader.stats().getDocs() < 10 && System.currentTimeMillis() < end) {
+			Thread.sleep(50);
+		}
+		Assert.assertEquals(10, loader.stats().getDocs());
+		loader.close();
+	}
+
+	@Test
+	public void parseErrorsAreNotRetried() throws Exception {
+		node.client().admin().indices().prepareCreate(index("bulkloader3"))
+				.addMapping("doc", "{\"doc\" : {\"properties\" : {\"number\" : {\"type\" : \"long\"}}}}")
+				.execute().actionGet();
+		BulkLoader loader = BulkLoader.builder(node.client())
+				.actions(10)
+				.maxRetries(3)
+				.build();
+
+		// number is mapped as a long: the last document cannot be indexed, sending it again is useless
+		for (int i = 0; i < 9; i++) {
+			loader.add(new IndexRequest(index("bulkloader3"), "doc", "doc_" + i).source("{\"number\" : " + i + "}"));
+		}
+		loader.add(new IndexRequest(index("bulkloader3"), "doc", "doc_9").source("{\"number\" : \"nine\"}"));
+		loader.close();
+
+		Assert.assertEquals(9, loader.stats().getDocs());
+		Assert.assertEquals(1, loader.stats().getFailures());
+		Assert.assertEquals(0, loader.stats().getRetries());
+	}
+
+	@Test
+	public void rejectedItemsAreRetried() throws Exception {
+		// A node of its own, whose bulk thread pool is tiny: shard bulks are rejected as soon as
+		// a few of them run at the same time
+		TestCluster busy = new TestCluster(1, ImmutableSettings.settingsBuilder()
+				.put("cluster.name", "bulkloader-retries")
+				.put("node.local", true)
+				.put("http.enabled", false)
+				.put("index.number_of_shards", 5)
+				.put("threadpool.bulk.type", "fixed")
+				.put("threadpool.bulk.size", 1)
+				.put("threadpool.bulk.queue_size", 1)
+				.build());
+		busy.start();
+		try {
+			Client client = busy.client(0);
+			BulkLoader loader = BulkLoader.builder(client)
+					.actions(50)
+					.concurrentRequests(4)
+					.maxRetries(10)
+					.retryBackoff(TimeValue.timeValueMillis(10))
+					.build();
+
+			for (int i = 0; i < 1000; i++) {
+				loader.add(new IndexRequest("bulkloader4", "doc", "doc_" + i).source("{\"number\" : " + i + "}"));
+			}
+			loader.close();
+			client.admin().indices().prepareRefresh("bulkloader4").execute().actionGet();
+
+			logger.info("Loader stats: {}", loader.stats());
+			Assert.assertTrue(loader.stats().getRetries() > 0);
+			Assert.assertEquals(0, loader.stats().getFailures());
+			Assert.assertEquals(1000, loader.stats().getDocs());
+			Assert.assertEquals(1000, client.prepareCount("bulkloader4").execute().actionGet().getCount());
+		} finally {
+			busy.close();
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package org.elasticsearchfr.tests.helper;
+
+import org.elasticsearch.action.admin.cluster.node.stats.NodeStats;
+import org.elasticsearch.action.admin.cluster.node.stats.NodesStatsResponse;
+import org.elasticsearch.client.Client;
+
+/**
+ * Read cache memory usage from node and indices stats
+ */
+public class CacheStatsHelper {
+
+	/**
+	 * @param client
+	 * @return filter cache size in bytes
+	 */
+	public static long filterCacheSize(Client client) {
+		long size = 0;
+		for (NodeStats stats : nodesStats(client).getNodes()) {
+			size += stats.getIndices().getCache().getFilterSizeInBytes();
+		}
+		return size;
+	}
+
+	/**
+	 * @param client
+	 * @param indices
+	 * @return field data cache size in bytes for these indices (primaries and replicas)
+	 */
+	public static long fieldDataCacheSize(Client client, String... indices) {
+		return client.admin().indices().prepareStats(indices).clear().setCache(true)
+				.execute().actionGet().getTotal().getCache().getFieldSizeInBytes();
+	}
+
+	/**
+	 * @param client
+	 * @param indices
+	 * @return id cache size in bytes for these indices: parent ids loaded by parent/child queries and filters
+	 */
+	public static long idCacheSize(Client client, String... indices) {
+		return client.admin().indices().prepareStats(indices).clear().setCache(true)
+				.execute().actionGet().getTotal().getCache().getIdCacheSizeInBytes();
+	}
+
+	/**
+	 * Clear the id cache of some indices
+	 * @param client
+	 * @param indices
+	 */
+	public static void clearIdCache(Client client, String... indices) {
+		client.admin().indices().prepareClearCache(indices).setIdCache(true).execute().actionGet();
+	}
+
+	/**
+	 * Clear the field data cache of some indices
+	 * @param client
+	 * @param indices
+	 */
+	public static void clearFieldDataCache(Client client, String... indices) {
+		client.admin().indices().prepareClearCache(indices).setFieldDataCache(true).execute().actionGet();
+	}
+
+	/**
+	 * Clear the filter cache of some indices
+	 * @param client
+	 * @param indices
+	 */
+	public static void clearFilterCache(Client client, String... indices) {
+		client.admin().indices().prepareClearCache(indices).setFilterCache(true).execute().actionGet();
+	}
+
+	private static NodesStatsResponse nodesStats(Client client) {
+		return client.admin().cluster().prepareNodesStats().setIndices(true).execute().actionGet();
+	}
+}
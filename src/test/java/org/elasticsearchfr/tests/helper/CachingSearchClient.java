@@ -0,0 +1,448 @@
+package org.elasticsearchfr.tests.helper;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.elasticsearch.ElasticSearchException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.admin.indices.refresh.RefreshResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+
+/**
+ * Keep the last search responses and give them back for identical searches.
+ * <ul>
+ * <li>Searches are identical when they have the same serialized source (query, filters, facets...),
+ * indices, types, search type and routing.</li>
+ * <li>The cache holds at most <code>maxEntries</code> responses and {@link #maxBytes(ByteSizeValue)} of
+ * serialized responses (64mb by default). The least recently used ones are evicted first.</li>
+ * <li>Elasticsearch can not tell us when an index is refreshed. Refreshes through {@link #refresh(String...)}
+ * (or calls to {@link #invalidate(String...)}) drop cached responses of these indices at once: use the same
+ * names (index or alias) as for searches. Other refreshes (<code>index.refresh_interval</code>, other clients)
+ * are covered by {@link #maxAge(TimeValue)}: responses older than the refresh interval (1s by default, as
+ * elasticsearch) are searched again and counted in {@link Stats#getExpirations()}.</li>
+ * <li>Scroll searches and responses with shard failures are never cached.</li>
+ * </ul>
+ * Thread safe. Cached responses are shared: callers must not modify them.
+ */
+public class CachingSearchClient {
+
+	/**
+	 * Cache metrics
+	 */
+	public static class Stats {
+		private final long hits;
+		private final long misses;
+		private final long evictions;
+		private final long invalidations;
+		private final long expirations;
+		private final int size;
+		private final long bytes;
+
+		Stats(long hits, long misses, long evictions, long invalidations, long expirations, int size, long bytes) {
+			this.hits = hits;
+			this.misses = misses;
+			this.evictions = evictions;
+			this.invalidations = invalidations;
+			this.expirations = expirations;
+			this.size = size;
+			this.bytes = bytes;
+		}
+
+		/**
+		 * @return searches answered from the cache
+		 */
+		public long getHits() {
+			return hits;
+		}
+
+		/**
+		 * @return searches sent to elasticsearch
+		 */
+		public long getMisses() {
+			return misses;
+		}
+
+		/**
+		 * @return responses removed to make room
+		 */
+		public long getEvictions() {
+			return evictions;
+		}
+
+		/**
+		 * @return responses removed after a refresh
+		 */
+		public long getInvalidations() {
+			return invalidations;
+		}
+
+		/**
+		 * @return responses older than <code>maxAge</code>, maybe stale after a refresh the cache did not see:
+		 * searched again
+		 */
+		public long getExpirations() {
+			return expirations;
+		}
+
+		/**
+		 * @return number of cached responses
+		 */
+		public int getSize() {
+			return size;
+		}
+
+		/**
+		 * @return serialized size of cached responses
+		 */
+		public long getBytes() {
+			return bytes;
+		}
+
+		/**
+		 * @return hits / (hits + misses)
+		 */
+		public double getHitRatio() {
+			return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d hits, %d misses (%.1f%% hit ratio), %d evictions, %d invalidations, %d expirations, %d entries (%s)",
+					hits, misses, getHitRatio() * 100, evictions, invalidations, expirations, size, new ByteSizeValue(bytes));
+		}
+	}
+
+	/**
+	 * What makes two searches identical
+	 */
+	private static class Key {
+		private final String[] indices;
+		private final String[] types;
+		private final byte[] source;
+		private final byte[] extraSource;
+		private final String searchType;
+		private final String routing;
+		private final int hash;
+
+		Key(SearchRequest request) {
+			this.indices = request.indices();
+			this.types = request.types();
+			this.source = bytes(request.source());
+			this.extraSource = bytes(request.extraSource());
+			this.searchType = request.searchType().name();
+			this.routing = request.routing();
+
+			int h = Arrays.hashCode(indices);
+			h = 31 * h + Arrays.hashCode(types);
+			h = 31 * h + Arrays.hashCode(source);
+			h = 31 * h + Arrays.hashCode(extraSource);
+			h = 31 * h + searchType.hashCode();
+			h = 31 * h + (routing == null ? 0 : routing.hashCode());
+			this.hash = h;
+		}
+
+		private static byte[] bytes(BytesReference reference) {
+			return reference == null ? null : reference.toBytes();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) return true;
+			if (!(obj instanceof Key)) return false;
+			Key key = (Key) obj;
+			return hash == key.hash
+					&& Arrays.equals(indices, key.indices)
+					&& Arrays.equals(types, key.types)
+					&& Arrays.equals(source, key.source)
+					&& Arrays.equals(extraSource, key.extraSource)
+					&& searchType.equals(key.searchType)
+					&& (routing == null ? key.routing == null : routing.equals(key.routing));
+		}
+
+		/**
+		 * @return true if this search reads one of these indices
+		 */
+		boolean reads(String[] names) {
+			if (indices == null || indices.length == 0) {
+				// All indices
+				return true;
+			}
+			for (String index : indices) {
+				for (String name : names) {
+					if (index.equals(name) || "_all".equals(index)) {
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * A cached response
+	 */
+	private static class Entry {
+		private final SearchResponse response;
+		private final long bytes;
+		private final long cachedAt;
+
+		Entry(SearchResponse response, long bytes, long cachedAt) {
+			this.response = response;
+			this.bytes = bytes;
+			this.cachedAt = cachedAt;
+		}
+	}
+
+	private final Client client;
+	private final int maxEntries;
+	private long maxBytes = new ByteSizeValue(64, ByteSizeUnit.MB).bytes();
+	private long maxAgeNanos = TimeValue.timeValueSeconds(1).nanos();
+
+	/**
+	 * Cached responses, least recently used first
+	 */
+	private final LinkedHashMap<Key, Entry> cache = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+	private long bytes = 0;
+
+	/**
+	 * Incremented on each invalidation. A response is only cached if no invalidation
+	 * happened while it was searched.
+	 */
+	private long generation = 0;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+	private final AtomicLong invalidations = new AtomicLong();
+	private final AtomicLong expirations = new AtomicLong();
+
+	/**
+	 * @param client client used to send searches
+	 * @param maxEntries maximum number of cached responses
+	 */
+	public CachingSearchClient(Client client, int maxEntries) {
+		this.client = client;
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * @param maxBytes maximum serialized size of cached responses (64mb by default). A response bigger
+	 * than that is not cached.
+	 */
+	public synchronized CachingSearchClient maxBytes(ByteSizeValue maxBytes) {
+		this.maxBytes = maxBytes.bytes();
+		evict();
+		return this;
+	}
+
+	/**
+	 * @param maxAge age after which a response is searched again: set it to the <code>index.refresh_interval</code>
+	 * of searched indices (1s by default). <code>-1</code> when indices are only refreshed through
+	 * {@link #refresh(String...)}.
+	 */
+	public synchronized CachingSearchClient maxAge(TimeValue maxAge) {
+		this.maxAgeNanos = maxAge.nanos();
+		return this;
+	}
+
+	/**
+	 * Search, or get the response of an identical search
+	 * @param request
+	 * @return the response
+	 */
+	public SearchResponse search(SearchRequestBuilder request) {
+		return search(request.request());
+	}
+
+	/**
+	 * Search, or get the response of an identical search
+	 * @param request
+	 * @return the response
+	 */
+	public SearchResponse search(SearchRequest request) {
+		if (request.scroll() != null) {
+			misses.incrementAndGet();
+			return client.search(request).actionGet();
+		}
+
+		Key key = new Key(request);
+		long searchedAt;
+		synchronized (this) {
+			SearchResponse cached = get(key);
+			if (cached != null) {
+				return cached;
+			}
+			searchedAt = generation;
+		}
+
+		misses.incrementAndGet();
+		SearchResponse response = client.search(request).actionGet();
+		put(key, response, searchedAt);
+		return response;
+	}
+
+	/**
+	 * Search, or get the response of an identical search
+	 * @param request
+	 * @param listener called by the caller thread when the response is cached, by an elasticsearch thread otherwise
+	 */
+	public void search(SearchRequest request, final ActionListener<SearchResponse> listener) {
+		if (request.scroll() != null) {
+			misses.incrementAndGet();
+			client.search(request, listener);
+			return;
+		}
+
+		final Key key = new Key(request);
+		final long searchedAt;
+		SearchResponse cached;
+		synchronized (this) {
+			cached = get(key);
+			searchedAt = generation;
+		}
+		// Outside the lock: the listener may take its time, or search again
+		if (cached != null) {
+			listener.onResponse(cached);
+			return;
+		}
+
+		misses.incrementAndGet();
+		client.search(request, new ActionListener<SearchResponse>() {
+			public void onResponse(SearchResponse response) {
+				put(key, response, searchedAt);
+				listener.onResponse(response);
+			}
+
+			public void onFailure(Throwable e) {
+				listener.onFailure(e);
+			}
+		});
+	}
+
+	/**
+	 * Refresh indices and drop their cached responses
+	 * @param indices
+	 * @return the refresh response
+	 */
+	public RefreshResponse refresh(String... indices) {
+		RefreshResponse response = client.admin().indices().prepareRefresh(indices).execute().actionGet();
+		invalidate(indices);
+		return response;
+	}
+
+	/**
+	 * Drop cached responses of these indices
+	 * @param indices index or alias names. None for all indices.
+	 */
+	public synchronized void invalidate(String... indices) {
+		generation++;
+		if (indices == null || indices.length == 0) {
+			invalidateAll();
+			return;
+		}
+		Iterator<Map.Entry<Key, Entry>> entries = cache.entrySet().iterator();
+		while (entries.hasNext()) {
+			Map.Entry<Key, Entry> entry = entries.next();
+			if (entry.getKey().reads(indices)) {
+				entries.remove();
+				bytes -= entry.getValue().bytes;
+				invalidations.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Drop all cached responses
+	 */
+	public synchronized void invalidateAll() {
+		generation++;
+		invalidations.addAndGet(cache.size());
+		cache.clear();
+		bytes = 0;
+	}
+
+	/**
+	 * @return current metrics
+	 */
+	public synchronized Stats stats() {
+		return new Stats(hits.get(), misses.get(), evictions.get(), invalidations.get(), expirations.get(),
+				cache.size(), bytes);
+	}
+
+	/**
+	 * @return the cached response, null if there is none or if it is too old. The caller holds the lock.
+	 */
+	private SearchResponse get(Key key) {
+		Entry entry = cache.get(key);
+		if (entry == null) {
+			return null;
+		}
+		if (maxAgeNanos >= 0 && System.nanoTime() - entry.cachedAt > maxAgeNanos) {
+			cache.remove(key);
+			bytes -= entry.bytes;
+			expirations.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		return entry.response;
+	}
+
+	private void put(Key key, SearchResponse response, long searchedAt) {
+		if (response.isTimedOut() || response.getShardFailures().length > 0) {
+			return;
+		}
+		// Serialized out of the lock
+		long size = serializedSize(response);
+		synchronized (this) {
+			if (searchedAt != generation || size > maxBytes) {
+				return;
+			}
+			Entry old = cache.put(key, new Entry(response, size, System.nanoTime()));
+			if (old != null) {
+				bytes -= old.bytes;
+			}
+			bytes += size;
+			evict();
+		}
+	}
+
+	/**
+	 * Remove least recently used responses until the cache fits its bounds. The caller holds the lock.
+	 */
+	private void evict() {
+		Iterator<Entry> entries = cache.values().iterator();
+		while (entries.hasNext() && (cache.size() > maxEntries || bytes > maxBytes)) {
+			bytes -= entries.next().bytes;
+			entries.remove();
+			evictions.incrementAndGet();
+		}
+	}
+
+	private static long serializedSize(SearchResponse response) {
+		try {
+			BytesStreamOutput out = new BytesStreamOutput();
+			response.writeTo(out);
+			return out.size();
+		} catch (IOException e) {
+			// Can not happen in memory
+			throw new ElasticSearchException("Could not measure a search response", e);
+		}
+	}
+}
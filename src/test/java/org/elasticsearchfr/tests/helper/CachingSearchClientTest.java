@@ -0,0 +1,101 @@
+package org.elasticsearchfr.tests.helper;
+
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testing cache hits, evictions and invalidations
+ */
+public class CachingSearchClientTest extends TestNodeHelper {
+
+	private String index;
+
+	@Before
+	public void setUp() throws Exception {
+		index = readOnlyCorpus(MEAL);
+	}
+
+	@Test
+	public void sameSearchFromCache() throws Exception {
+		CachingSearchClient cache = new CachingSearchClient(client(), 10);
+
+		SearchResponse first = cache.search(client().prepareSearch(index).setQuery(QueryBuilders.termQuery("brand", "heineken")));
+		SearchResponse second = cache.search(client().prepareSearch(index).setQuery(QueryBuilders.termQuery("brand", "heineken")));
+		cache.search(client().prepareSearch(index).setQuery(QueryBuilders.termQuery("brand", "kriek")));
+
+		Assert.assertSame(first, second);
+		Assert.assertEquals(1, cache.stats().getHits());
+		Assert.assertEquals(2, cache.stats().getMisses());
+		Assert.assertEquals(2, cache.stats().getSize());
+	}
+
+	@Test
+	public void evictLeastRecentlyUsed() throws Exception {
+		CachingSearchClient cache = new CachingSearchClient(client(), 2);
+
+		cache.search(client().prepareSearch(index).setQuery(QueryBuilders.termQuery("brand", "heineken")));
+		cache.search(client().prepareSearch(index).setQuery(QueryBuilders.termQuery("brand", "kriek")));
+		// heineken is now more recent than kriek
+		cache.search(client().prepareSearch(index).setQuery(QueryBuilders.termQuery("brand", "heineken")));
+		Assert.assertEquals(1, cache.stats().getHits());
+
+		cache.search(client().prepareSearch(index).setQuery(QueryBuilders.termQuery("brand", "chimay")));
+		Assert.assertEquals(1, cache.stats().getEvictions());
+		Assert.assertEquals(2, cache.stats().getSize());
+
+		// heineken is still cached, kriek was evicted
+		cache.search(client().prepareSearch(index).setQuery(QueryBuilders.termQuery("brand", "heineken")));
+		Assert.assertEquals(2, cache.stats().getHits());
+		cache.search(client().prepareSearch(index).setQuery(QueryBuilders.termQuery("brand", "kriek")));
+		Assert.assertEquals(2, cache.stats().getHits());
+		Assert.assertEquals(4, cache.stats().getMisses());
+	}
+
+	@Test
+	public void refreshInvalidates() throws Exception {
+		CachingSearchClient cache = new CachingSearchClient(client(), 10);
+
+		cache.search(client().prepareSearch(index).setQuery(QueryBuilders.matchAllQuery()));
+		cache.refresh(index);
+		cache.search(client().prepareSearch(index).setQuery(QueryBuilders.matchAllQuery()));
+
+		Assert.assertEquals(0, cache.stats().getHits());
+		Assert.assertEquals(2, cache.stats().getMisses());
+		Assert.assertEquals(1, cache.stats().getInvalidations());
+	}
+
+	@Test
+	public void oldResponsesExpire() throws Exception {
+		// Refreshes the cache does not see (refresh interval, other clients) are covered by maxAge
+		CachingSearchClient cache = new CachingSearchClient(client(), 10).maxAge(TimeValue.timeValueMillis(50));
+
+		cache.search(client().prepareSearch(index).setQuery(QueryBuilders.matchAllQuery()));
+		Thread.sleep(100);
+		cache.search(client().prepareSearch(index).setQuery(QueryBuilders.matchAllQuery()));
+
+		Assert.assertEquals(0, cache.stats().getHits());
+		Assert.assertEquals(2, cache.stats().getMisses());
+		Assert.assertEquals(1, cache.stats().getExpirations());
+	}
+
+	@Test
+	public void evictToFitMaxBytes() throws Exception {
+		CachingSearchClient cache = new CachingSearchClient(client(), 10);
+		cache.search(client().prepareSearch(index).setQuery(QueryBuilders.matchAllQuery()).setSize(10));
+		long bytes = cache.stats().getBytes();
+		Assert.assertTrue(bytes > 0);
+
+		// Room for one response of this size only
+		cache.maxBytes(new ByteSizeValue(bytes + bytes / 2));
+		cache.search(client().prepareSearch(index).setQuery(QueryBuilders.matchAllQuery()).setFrom(10).setSize(10));
+
+		Assert.assertEquals(1, cache.stats().getEvictions());
+		Assert.assertEquals(1, cache.stats().getSize());
+		Assert.assertTrue(cache.stats().getBytes() <= bytes + bytes / 2);
+	}
+}
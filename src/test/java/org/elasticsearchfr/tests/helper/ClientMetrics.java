@@ -0,0 +1,125 @@
+package org.elasticsearchfr.tests.helper;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latencies of client calls, per action and index, recorded by an {@link InstrumentedClient}.
+ * <br>For each action and index, two histograms are kept:
+ * <ul>
+ * <li>client: time from the call to the response, as seen by the caller</li>
+ * <li>server: <code>took</code> of the response, when the response has one (search, bulk).
+ * The difference with the client time is spent in transport, serialization and queues.</li>
+ * </ul>
+ * Thread safe.
+ */
+public class ClientMetrics {
+
+	/**
+	 * Latencies of one action on one index
+	 */
+	public static class Timer {
+		private final LatencyHistogram client = new LatencyHistogram();
+		private final LatencyHistogram server = new LatencyHistogram();
+		private final AtomicLong failures = new AtomicLong();
+
+		/**
+		 * @return latencies seen by the caller
+		 */
+		public LatencyHistogram getClient() {
+			return client;
+		}
+
+		/**
+		 * @return latencies measured by elasticsearch (took)
+		 */
+		public LatencyHistogram getServer() {
+			return server;
+		}
+
+		/**
+		 * @return failed calls
+		 */
+		public long getFailures() {
+			return failures.get();
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder("client [").append(client).append("]");
+			if (server.count() > 0) {
+				sb.append(", server [").append(server).append("]");
+			}
+			if (failures.get() > 0) {
+				sb.append(", ").append(failures.get()).append(" failures");
+			}
+			return sb.toString();
+		}
+	}
+
+	private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<String, Timer>();
+
+	/**
+	 * Record a successful call
+	 * @param action action name (search, bulk, indices/refresh...)
+	 * @param index index names, "_all" or "_na"
+	 * @param nanos time seen by the caller
+	 * @param tookMillis time measured by elasticsearch, -1 if unknown
+	 */
+	public void record(String action, String index, long nanos, long tookMillis) {
+		Timer timer = timer(action, index);
+		timer.client.record(nanos);
+		if (tookMillis >= 0) {
+			timer.server.record(TimeUnit.MILLISECONDS.toNanos(tookMillis));
+		}
+	}
+
+	/**
+	 * Record a failed call
+	 * @param action action name
+	 * @param index index names
+	 */
+	public void failure(String action, String index) {
+		timer(action, index).failures.incrementAndGet();
+	}
+
+	/**
+	 * @param action action name
+	 * @param index index names
+	 * @return the latencies of this action on this index (created if needed)
+	 */
+	public Timer timer(String action, String index) {
+		String key = action + " [" + index + "]";
+		Timer timer = timers.get(key);
+		if (timer == null) {
+			Timer created = new Timer();
+			timer = timers.putIfAbsent(key, created);
+			if (timer == null) {
+				timer = created;
+			}
+		}
+		return timer;
+	}
+
+	/**
+	 * Forget all recorded calls
+	 */
+	public void reset() {
+		timers.clear();
+	}
+
+	/**
+	 * @return one line per action and index, sorted
+	 */
+	public String report() {
+		StringBuilder sb = new StringBuilder();
+		for (Map.Entry<String, Timer> entry : new TreeMap<String, Timer>(timers).entrySet()) {
+			sb.append(entry.getKey()).append(": ").append(entry.getValue()).append("\n");
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,204 @@
+package org.elasticsearchfr.tests.helper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.elasticsearch.action.ActionFuture;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.support.PlainActionFuture;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.ESLoggerFactory;
+import org.elasticsearch.common.unit.TimeValue;
+
+/**
+ * Group searches arriving at the same time into multi search requests.
+ * <ul>
+ * <li>A group is sent when the first search of the group has waited <code>window</code>,
+ * or when it holds <code>maxBatch</code> searches.</li>
+ * <li>Each caller gets its own {@link MultiSearchResponse.Item}.</li>
+ * </ul>
+ * Thread safe. Callers trade up to <code>window</code> of latency for less round trips.
+ * <pre>
+ * CoalescingSearchClient coalescing = new CoalescingSearchClient(client, TimeValue.timeValueMillis(2), 50);
+ * MultiSearchResponse.Item item = coalescing.search(request).actionGet();
+ * coalescing.close();
+ * </pre>
+ */
+public class CoalescingSearchClient {
+	private static final ESLogger logger = ESLoggerFactory.getLogger(CoalescingSearchClient.class.getName());
+
+	private final Client client;
+	private final long windowNanos;
+	private final int maxBatch;
+	private final ScheduledExecutorService scheduler;
+
+	private List<SearchRequest> requests = new ArrayList<SearchRequest>();
+	private List<ActionListener<MultiSearchResponse.Item>> listeners = new ArrayList<ActionListener<MultiSearchResponse.Item>>();
+
+	/**
+	 * Number of the group being filled
+	 */
+	private long group = 0;
+	private boolean closed = false;
+
+	private final AtomicLong searches = new AtomicLong();
+	private final AtomicLong multiSearches = new AtomicLong();
+
+	/**
+	 * @param client client used to send multi searches
+	 * @param window maximum time a search waits for other searches
+	 * @param maxBatch maximum number of searches in a multi search
+	 */
+	public CoalescingSearchClient(Client client, TimeValue window, int maxBatch) {
+		this.client = client;
+		this.windowNanos = window.nanos();
+		this.maxBatch = Math.max(1, maxBatch);
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "search-coalescer");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Add a search to the current group
+	 * @param request
+	 * @param listener called by an elasticsearch thread once the group is executed
+	 */
+	public void search(SearchRequest request, ActionListener<MultiSearchResponse.Item> listener) {
+		synchronized (this) {
+			if (closed) {
+				throw new IllegalStateException("Coalescing search client is closed");
+			}
+			requests.add(request);
+			listeners.add(listener);
+			searches.incrementAndGet();
+
+			if (requests.size() >= maxBatch || windowNanos <= 0) {
+				send();
+			} else if (requests.size() == 1) {
+				final long scheduled = group;
+				scheduler.schedule(new Runnable() {
+					public void run() {
+						flush(scheduled);
+					}
+				}, windowNanos, TimeUnit.NANOSECONDS);
+			}
+		}
+	}
+
+	/**
+	 * Add a search to the current group
+	 * @param request
+	 * @return the future item of the multi search response
+	 */
+	public ActionFuture<MultiSearchResponse.Item> search(SearchRequest request) {
+		PlainActionFuture<MultiSearchResponse.Item> future = PlainActionFuture.newFuture();
+		search(request, future);
+		return future;
+	}
+
+	/**
+	 * Send the current group now
+	 */
+	public synchronized void flush() {
+		if (!requests.isEmpty()) {
+			send();
+		}
+	}
+
+	/**
+	 * Send the current group and stop accepting searches
+	 */
+	public void close() {
+		synchronized (this) {
+			flush();
+			closed = true;
+		}
+		scheduler.shutdownNow();
+	}
+
+	/**
+	 * @return number of searches received
+	 */
+	public long getSearches() {
+		return searches.get();
+	}
+
+	/**
+	 * @return number of multi searches sent
+	 */
+	public long getMultiSearches() {
+		return multiSearches.get();
+	}
+
+	/**
+	 * @return mean number of searches per multi search
+	 */
+	public double getMeanBatchSize() {
+		long sent = multiSearches.get();
+		return sent == 0 ? 0 : (double) searches.get() / sent;
+	}
+
+	/**
+	 * The window of a group is elapsed: send it, unless it was already sent because it was full
+	 */
+	private synchronized void flush(long scheduled) {
+		if (scheduled == group && !requests.isEmpty()) {
+			send();
+		}
+	}
+
+	/**
+	 * Send the current group. The caller must hold the lock.
+	 */
+	private void send() {
+		final List<ActionListener<MultiSearchResponse.Item>> groupListeners = listeners;
+		MultiSearchRequest multi = new MultiSearchRequest();
+		for (SearchRequest request : requests) {
+			multi.add(request);
+		}
+		requests = new ArrayList<SearchRequest>();
+		listeners = new ArrayList<ActionListener<MultiSearchResponse.Item>>();
+		group++;
+		multiSearches.incrementAndGet();
+
+		// Callers already answered, so a failure after the responses (a caller listener threw) does not call them again
+		final AtomicIntegerArray completed = new AtomicIntegerArray(groupListeners.size());
+		client.multiSearch(multi, new ActionListener<MultiSearchResponse>() {
+			public void onResponse(MultiSearchResponse response) {
+				MultiSearchResponse.Item[] items = response.getResponses();
+				for (int i = 0; i < items.length; i++) {
+					if (completed.compareAndSet(i, 0, 1)) {
+						try {
+							groupListeners.get(i).onResponse(items[i]);
+						} catch (RuntimeException e) {
+							// Other callers of the group still get their item
+							logger.warn("search listener failed", e);
+						}
+					}
+				}
+			}
+
+			public void onFailure(Throwable e) {
+				for (int i = 0; i < groupListeners.size(); i++) {
+					if (completed.compareAndSet(i, 0, 1)) {
+						groupListeners.get(i).onFailure(e);
+					}
+				}
+			}
+		});
+	}
+}
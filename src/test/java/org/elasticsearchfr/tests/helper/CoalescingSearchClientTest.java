@@ -0,0 +1,89 @@
+package org.elasticsearchfr.tests.helper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.elasticsearch.action.ActionFuture;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.MultiSearchResponse;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testing that concurrent searches are grouped in multi searches
+ */
+public class CoalescingSearchClientTest extends TestNodeHelper {
+
+	private String index;
+
+	@Before
+	public void setUp() throws Exception {
+		index = readOnlyCorpus(MEAL);
+	}
+
+	@Test
+	public void groupByBatchSize() throws Exception {
+		// The window is long enough: only the batch size sends searches
+		CoalescingSearchClient coalescing = new CoalescingSearchClient(client(), TimeValue.timeValueMinutes(1), 5);
+
+		List<ActionFuture<MultiSearchResponse.Item>> futures = new ArrayList<ActionFuture<MultiSearchResponse.Item>>();
+		for (int i = 0; i < 10; i++) {
+			futures.add(coalescing.search(client().prepareSearch(index)
+					.setQuery(QueryBuilders.termQuery("brand", "heineken"))
+					.request()));
+		}
+
+		for (ActionFuture<MultiSearchResponse.Item> future : futures) {
+			MultiSearchResponse.Item item = future.actionGet();
+			Assert.assertFalse(item.getFailureMessage(), item.isFailure());
+			Assert.assertTrue(item.getResponse().getHits().getTotalHits() > 0);
+		}
+		Assert.assertEquals(10, coalescing.getSearches());
+		Assert.assertEquals(2, coalescing.getMultiSearches());
+		coalescing.close();
+	}
+
+	@Test
+	public void sendAfterWindow() throws Exception {
+		CoalescingSearchClient coalescing = new CoalescingSearchClient(client(), TimeValue.timeValueMillis(20), 100);
+
+		MultiSearchResponse.Item item = coalescing.search(client().prepareSearch(index)
+				.setQuery(QueryBuilders.matchAllQuery())
+				.request()).actionGet();
+
+		Assert.assertFalse(item.isFailure());
+		Assert.assertEquals(MEAL.getSize(), item.getResponse().getHits().getTotalHits());
+		coalescing.close();
+	}
+
+	@Test
+	public void throwingListenerDoesNotStarveTheGroup() throws Exception {
+		CoalescingSearchClient coalescing = new CoalescingSearchClient(client(), TimeValue.timeValueMinutes(1), 2);
+		final AtomicInteger calls = new AtomicInteger();
+
+		coalescing.search(client().prepareSearch(index).setQuery(QueryBuilders.matchAllQuery()).request(),
+				new ActionListener<MultiSearchResponse.Item>() {
+					public void onResponse(MultiSearchResponse.Item item) {
+						calls.incrementAndGet();
+						throw new IllegalStateException("listener bug");
+					}
+
+					public void onFailure(Throwable e) {
+						calls.incrementAndGet();
+					}
+				});
+		// Second search of the group: sends the multi search
+		MultiSearchResponse.Item item = coalescing.search(client().prepareSearch(index)
+				.setQuery(QueryBuilders.matchAllQuery())
+				.request()).actionGet();
+
+		Assert.assertFalse(item.isFailure());
+		Thread.sleep(100);
+		Assert.assertEquals(1, calls.get());
+		coalescing.close();
+	}
+}
@@ -0,0 +1,37 @@
+package org.elasticsearchfr.tests.helper;
+
+import org.elasticsearch.client.Client;
+
+/**
+ * A corpus is a named and seeded set of documents that tests can share.
+ * <br>See {@link CorpusFixtures}
+ */
+public interface Corpus {
+
+	/**
+	 * @return the name tests use to search the corpus (published as an alias)
+	 */
+	String getName();
+
+	/**
+	 * Two corpus with the same key hold exactly the same documents.
+	 * @return a key usable as an index name (lowercase)
+	 */
+	String getKey();
+
+	/**
+	 * Create the index which will hold the corpus documents (settings and mappings)
+	 * @param client client to use
+	 * @param index index to create
+	 * @throws Exception
+	 */
+	void create(Client client, String index) throws Exception;
+
+	/**
+	 * Index all the corpus documents
+	 * @param client client to use
+	 * @param index index created with {@link #create(Client, String)}
+	 * @throws Exception
+	 */
+	void load(Client client, String index) throws Exception;
+}
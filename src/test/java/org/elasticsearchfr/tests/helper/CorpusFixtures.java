@@ -0,0 +1,262 @@
+package org.elasticsearchfr.tests.helper;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MappingMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.ESLoggerFactory;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHitField;
+
+/**
+ * Build each {@link Corpus} once and share it between tests.
+ * <ul>
+ * <li>{@link #readOnly(Corpus)} indexes the corpus the first time it is asked for, then
+ * blocks writes on the index and publishes it under the corpus name (an alias).
+ * Next calls only return the alias name.</li>
+ * <li>{@link #writableCopy(Corpus)} gives a private index for tests which modify data.
+ * The copy is made from the read-only index _source, so beers are never generated twice.</li>
+ * <li>{@link #resettable(Corpus, String)} gives a copy behind an alias, reset in constant time by
+ * switching the alias to a copy prepared in the background.</li>
+ * </ul>
+ * With {@link #persistent(boolean)}, on nodes started with {@link #persistentSettings(File)}, corpus indices
+ * survive the JVM: they are named after the corpus key and a hash of their mapping, and the next runs reuse
+ * them once the local gateway has recovered them. Delete the directory after changing how documents are
+ * generated: the key only knows the corpus parameters.
+ */
+public class CorpusFixtures {
+	private static final ESLogger logger = ESLoggerFactory.getLogger(CorpusFixtures.class.getName());
+
+	private static final int COPY_SIZE = 1000;
+
+	private final Client client;
+
+	/**
+	 * Published corpus: corpus name -> corpus key
+	 */
+	private final Map<String, String> published = new HashMap<String, String>();
+
+	private final AtomicInteger copies = new AtomicInteger();
+
+	private boolean persistent = false;
+
+	public CorpusFixtures(Client client) {
+		this.client = client;
+	}
+
+	/**
+	 * Node settings keeping indices between runs: local gateway and niofs store in a directory
+	 * @param dir data directory, shared by all runs
+	 * @return settings to add to each node
+	 */
+	public static Settings persistentSettings(File dir) {
+		return ImmutableSettings.settingsBuilder()
+				.put("gateway.type", "local")
+				.put("index.store.type", "niofs")
+				.put("path.data", dir.getAbsolutePath())
+				.build();
+	}
+
+	/**
+	 * @param persistent true to reuse corpus indices recovered from a previous run (false by default).
+	 * Nodes must be started with {@link #persistentSettings(File)}.
+	 */
+	public CorpusFixtures persistent(boolean persistent) {
+		this.persistent = persistent;
+		return this;
+	}
+
+	/**
+	 * Delete recovered indices which can not be reused: corpus not completely built (not frozen yet)
+	 * and writable copies of a previous run
+	 * @return number of deleted indices
+	 */
+	public int removeUnfinished() {
+		int deleted = 0;
+		for (IndexMetaData index : metaData().indices().values()) {
+			if (!frozen(index)) {
+				logger.info("Removing index [{}] left by a previous run", index.index());
+				client.admin().indices().prepareDelete(index.index()).execute().actionGet();
+				deleted++;
+			}
+		}
+		return deleted;
+	}
+
+	/**
+	 * Get a read-only corpus, building it if needed
+	 * @param corpus
+	 * @return the name to search (alias on the corpus index)
+	 * @throws Exception
+	 */
+	public synchronized String readOnly(Corpus corpus) throws Exception {
+		String key = published.get(corpus.getName());
+		if (key != null) {
+			if (!key.equals(corpus.getKey())) {
+				throw new IllegalStateException("Corpus [" + corpus.getName() + "] is already published as ["
+						+ key + "]. Can not publish [" + corpus.getKey() + "].");
+			}
+			return corpus.getName();
+		}
+
+		long start = System.currentTimeMillis();
+		String index = corpus.getKey();
+		if (persistent) {
+			index = corpus.getKey() + "_" + mappingHash(corpus);
+			if (reuse(corpus, index)) {
+				published.put(corpus.getName(), corpus.getKey());
+				logger.info("Corpus [{}] reopened from [{}] in {} ms", corpus, index, System.currentTimeMillis() - start);
+				return corpus.getName();
+			}
+		}
+
+		corpus.create(client, index);
+		client.admin().cluster().prepareHealth(index).setWaitForYellowStatus().execute().actionGet();
+		corpus.load(client, index);
+		client.admin().indices().prepareRefresh(index).execute().actionGet();
+
+		// We freeze the index so tests sharing it can not modify it
+		client.admin().indices().prepareUpdateSettings(index)
+				.setSettings(ImmutableSettings.settingsBuilder().put("index.blocks.write", true))
+				.execute().actionGet();
+		client.admin().indices().prepareAliases().addAlias(index, corpus.getName()).execute().actionGet();
+
+		published.put(corpus.getName(), corpus.getKey());
+		logger.info("Corpus [{}] built in {} ms", corpus, System.currentTimeMillis() - start);
+
+		return corpus.getName();
+	}
+
+	/**
+	 * Reuse a corpus index recovered by the gateway. Other versions of the same corpus are deleted.
+	 * @return true if the index is complete and published
+	 */
+	private boolean reuse(Corpus corpus, String index) {
+		boolean found = false;
+		for (IndexMetaData existing : metaData().indices().values()) {
+			if (existing.index().equals(index) && frozen(existing)) {
+				found = true;
+			} else if (existing.index().matches(Pattern.quote(corpus.getKey()) + "_[0-9a-f]+") && frozen(existing)) {
+				logger.info("Removing index [{}]: mapping of corpus [{}] changed", existing.index(), corpus);
+				client.admin().indices().prepareDelete(existing.index()).execute().actionGet();
+			}
+		}
+		if (!found) {
+			return false;
+		}
+
+		client.admin().cluster().prepareHealth(index).setWaitForYellowStatus().execute().actionGet();
+		client.admin().indices().prepareAliases().addAlias(index, corpus.getName()).execute().actionGet();
+		return true;
+	}
+
+	/**
+	 * Create an empty corpus index to hash what {@link Corpus#create(Client, String)} gives: mappings and shards
+	 */
+	private String mappingHash(Corpus corpus) throws Exception {
+		String probe = corpus.getKey() + "_probe";
+		corpus.create(client, probe);
+		try {
+			IndexMetaData metaData = metaData().index(probe);
+			// Sorted by type so the hash does not depend on map order
+			Map<String, String> mappings = new TreeMap<String, String>();
+			for (Map.Entry<String, MappingMetaData> mapping : metaData.mappings().entrySet()) {
+				mappings.put(mapping.getKey(), mapping.getValue().source().string());
+			}
+			String description = metaData.numberOfShards() + "/" + metaData.numberOfReplicas() + "/" + mappings;
+			return Integer.toHexString(description.hashCode());
+		} finally {
+			client.admin().indices().prepareDelete(probe).execute().actionGet();
+		}
+	}
+
+	private MetaData metaData() {
+		return client.admin().cluster().prepareState().execute().actionGet().getState().metaData();
+	}
+
+	private static boolean frozen(IndexMetaData index) {
+		return index.settings().getAsBoolean("index.blocks.write", false);
+	}
+
+	/**
+	 * Get a private copy of a corpus that the caller can modify.
+	 * <br>The caller should {@link #drop(String)} it when done.
+	 * @param corpus
+	 * @return the name of a new index holding the corpus documents
+	 * @throws Exception
+	 */
+	public String writableCopy(Corpus corpus) throws Exception {
+		String source = readOnly(corpus);
+		String index = corpus.getKey() + "_copy" + copies.incrementAndGet();
+
+		corpus.create(client, index);
+		client.admin().cluster().prepareHealth(index).setWaitForYellowStatus().execute().actionGet();
+		copy(source, index);
+		client.admin().indices().prepareRefresh(index).execute().actionGet();
+
+		return index;
+	}
+
+	/**
+	 * Get a copy of a corpus behind an alias, that the caller can modify and {@link ResettableCorpus#reset()}.
+	 * <br>The caller should {@link ResettableCorpus#close()} it when done.
+	 * @param corpus
+	 * @param alias name to search and modify
+	 * @return the resettable copy
+	 * @throws Exception
+	 */
+	public ResettableCorpus resettable(Corpus corpus, String alias) throws Exception {
+		ResettableCorpus resettable = new ResettableCorpus(client, this, corpus, alias);
+		resettable.open();
+		return resettable;
+	}
+
+	/**
+	 * Remove an index created by {@link #writableCopy(Corpus)}
+	 * @param index
+	 */
+	public void drop(String index) {
+		client.admin().indices().prepareDelete(index).execute().actionGet();
+	}
+
+	/**
+	 * Copy all documents from one index to another using scan and scroll.
+	 * <br>Parent and routing are kept, so children stay with their parent (same shard) in the copy.
+	 */
+	void copy(String from, final String to) throws Exception {
+		final BulkLoader loader = BulkLoader.builder(client).actions(COPY_SIZE).concurrentRequests(2).build();
+		try {
+			new ScanExporter(client).size(COPY_SIZE).fields("_source", "_parent", "_routing").export(from, new ScanExporter.HitHandler() {
+				public void hit(SearchHit hit) throws Exception {
+					IndexRequest request = new IndexRequest(to, hit.getType(), hit.getId()).source(hit.source());
+					SearchHitField parent = hit.field("_parent");
+					if (parent != null) {
+						request.parent(parent.<String>value());
+					}
+					SearchHitField routing = hit.field("_routing");
+					if (routing != null) {
+						request.routing(routing.<String>value());
+					}
+					loader.add(request);
+				}
+			});
+		} finally {
+			loader.close();
+		}
+
+		if (loader.stats().getFailures() > 0) {
+			throw new Exception("Could not copy " + loader.stats().getFailures() + " documents from [" + from + "] to [" + to + "]");
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package org.elasticsearchfr.tests.helper;
+
+import java.util.Map;
+
+import org.elasticsearch.index.query.FilterBuilders;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Testing corpus copies
+ */
+public class CorpusFixturesTest extends TestNodeHelper {
+
+	@Test
+	public void writableCopyKeepsParents() throws Exception {
+		String breweries = readOnlyCorpus(BREWERIES);
+		String copy = writableCorpus(BREWERIES);
+		try {
+			Assert.assertEquals(breweriesWithHeineken(breweries), breweriesWithHeineken(copy));
+			Assert.assertTrue(breweriesWithHeineken(copy) > 0);
+
+			long beers = client().prepareSearch(copy)
+					.setFilter(FilterBuilders.hasParentFilter(BreweryCorpus.PARENT_TYPE, QueryBuilders.termQuery("city", "brussels")))
+					.execute().actionGet().getHits().getTotalHits();
+			Assert.assertTrue(beers > 0);
+		} finally {
+			dropCorpus(copy);
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void beersOfBreweriesHaveTheBeerMapping() throws Exception {
+		String copy = writableCorpus(BREWERIES);
+		try {
+			Map<String, Object> mapping = client().admin().cluster().prepareState().execute().actionGet()
+					.getState().metaData().index(copy).mapping(BreweryCorpus.CHILD_TYPE).sourceAsMap();
+			Assert.assertEquals(BreweryCorpus.PARENT_TYPE, ((Map<String, Object>) mapping.get("_parent")).get("type"));
+			Map<String, Object> properties = (Map<String, Object>) mapping.get("properties");
+			Assert.assertEquals("nested", ((Map<String, Object>) properties.get("ingredients")).get("type"));
+			Assert.assertEquals("geo_point", ((Map<String, Object>) properties.get("location")).get("type"));
+		} finally {
+			dropCorpus(copy);
+		}
+	}
+
+	private long breweriesWithHeineken(String index) {
+		return client().prepareSearch(index)
+				.setFilter(FilterBuilders.hasChildFilter(BreweryCorpus.CHILD_TYPE, QueryBuilders.termQuery("brand", "heineken")))
+				.execute().actionGet().getHits().getTotalHits();
+	}
+}
@@ -0,0 +1,32 @@
+package org.elasticsearchfr.tests.helper;
+
+import org.elasticsearch.action.admin.indices.stats.IndicesStatsResponse;
+import org.elasticsearch.client.Client;
+
+/**
+ * Read index sizes from indices stats
+ */
+public class IndexStatsHelper {
+
+	/**
+	 * @param client
+	 * @param indices
+	 * @return size of the index files for these indices (primaries and replicas)
+	 */
+	public static long storeSize(Client client, String... indices) {
+		return storeStats(client, indices).getTotal().getStore().getSizeInBytes();
+	}
+
+	/**
+	 * @param client
+	 * @param indices
+	 * @return size of the index files for these indices (primaries only)
+	 */
+	public static long primaryStoreSize(Client client, String... indices) {
+		return storeStats(client, indices).getPrimaries().getStore().getSizeInBytes();
+	}
+
+	private static IndicesStatsResponse storeStats(Client client, String... indices) {
+		return client.admin().indices().prepareStats(indices).clear().setStore(true).execute().actionGet();
+	}
+}
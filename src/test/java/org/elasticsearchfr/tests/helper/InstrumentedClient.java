@@ -0,0 +1,235 @@
+package org.elasticsearchfr.tests.helper;
+
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.elasticsearch.action.Action;
+import org.elasticsearch.action.ActionFuture;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionRequestBuilder;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.action.admin.cluster.ClusterAction;
+import org.elasticsearch.action.admin.indices.IndicesAction;
+import org.elasticsearch.action.admin.indices.mapping.put.PutMappingRequest;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.support.PlainActionFuture;
+import org.elasticsearch.action.support.broadcast.BroadcastOperationRequest;
+import org.elasticsearch.action.support.replication.ShardReplicationOperationRequest;
+import org.elasticsearch.action.support.single.shard.SingleShardOperationRequest;
+import org.elasticsearch.client.AdminClient;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.client.ClusterAdminClient;
+import org.elasticsearch.client.IndicesAdminClient;
+import org.elasticsearch.client.internal.InternalClient;
+import org.elasticsearch.client.internal.InternalClusterAdminClient;
+import org.elasticsearch.client.internal.InternalIndicesAdminClient;
+import org.elasticsearch.client.support.AbstractClient;
+import org.elasticsearch.client.support.AbstractClusterAdminClient;
+import org.elasticsearch.client.support.AbstractIndicesAdminClient;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.threadpool.ThreadPool;
+
+/**
+ * A client recording the latency of every call (admin calls included) in {@link ClientMetrics}.
+ * <br>Calls are recorded per action name (search, bulk, get, indices/refresh, indices/mapping/put,
+ * cluster/state...) and per index.
+ * <pre>
+ * ClientMetrics metrics = new ClientMetrics();
+ * Client client = new InstrumentedClient(node.client(), metrics);
+ * ...
+ * logger.info("Latencies:\n{}", metrics.report());
+ * </pre>
+ */
+public class InstrumentedClient extends AbstractClient {
+
+	private final Client client;
+	private final ClientMetrics metrics;
+	private final InstrumentedAdminClient admin;
+
+	/**
+	 * @param client client to instrument
+	 * @param metrics where latencies are recorded
+	 */
+	public InstrumentedClient(Client client, ClientMetrics metrics) {
+		this.client = client;
+		this.metrics = metrics;
+		this.admin = new InstrumentedAdminClient();
+	}
+
+	/**
+	 * @return latencies recorded by this client
+	 */
+	public ClientMetrics metrics() {
+		return metrics;
+	}
+
+	public ThreadPool threadPool() {
+		return ((InternalClient) client).threadPool();
+	}
+
+	public AdminClient admin() {
+		return admin;
+	}
+
+	public void close() {
+		client.close();
+	}
+
+	public <Request extends ActionRequest, Response extends ActionResponse, RequestBuilder extends ActionRequestBuilder<Request, Response>>
+			ActionFuture<Response> execute(Action<Request, Response, RequestBuilder> action, Request request) {
+		PlainActionFuture<Response> future = PlainActionFuture.newFuture();
+		execute(action, request, future);
+		return future;
+	}
+
+	public <Request extends ActionRequest, Response extends ActionResponse, RequestBuilder extends ActionRequestBuilder<Request, Response>>
+			void execute(Action<Request, Response, RequestBuilder> action, Request request, ActionListener<Response> listener) {
+		client.execute(action, request, record(action.name(), request, listener));
+	}
+
+	private class InstrumentedAdminClient implements AdminClient {
+		private final InstrumentedClusterAdminClient cluster = new InstrumentedClusterAdminClient();
+		private final InstrumentedIndicesAdminClient indices = new InstrumentedIndicesAdminClient();
+
+		public ClusterAdminClient cluster() {
+			return cluster;
+		}
+
+		public IndicesAdminClient indices() {
+			return indices;
+		}
+	}
+
+	private class InstrumentedClusterAdminClient extends AbstractClusterAdminClient {
+
+		public ThreadPool threadPool() {
+			return ((InternalClusterAdminClient) client.admin().cluster()).threadPool();
+		}
+
+		public <Request extends ActionRequest, Response extends ActionResponse, RequestBuilder extends ActionRequestBuilder<Request, Response>>
+				ActionFuture<Response> execute(ClusterAction<Request, Response, RequestBuilder> action, Request request) {
+			PlainActionFuture<Response> future = PlainActionFuture.newFuture();
+			execute(action, request, future);
+			return future;
+		}
+
+		public <Request extends ActionRequest, Response extends ActionResponse, RequestBuilder extends ActionRequestBuilder<Request, Response>>
+				void execute(ClusterAction<Request, Response, RequestBuilder> action, Request request, ActionListener<Response> listener) {
+			client.admin().cluster().execute(action, request, record(action.name(), request, listener));
+		}
+	}
+
+	private class InstrumentedIndicesAdminClient extends AbstractIndicesAdminClient {
+
+		public ThreadPool threadPool() {
+			return ((InternalIndicesAdminClient) client.admin().indices()).threadPool();
+		}
+
+		public <Request extends ActionRequest, Response extends ActionResponse, RequestBuilder extends ActionRequestBuilder<Request, Response>>
+				ActionFuture<Response> execute(IndicesAction<Request, Response, RequestBuilder> action, Request request) {
+			PlainActionFuture<Response> future = PlainActionFuture.newFuture();
+			execute(action, request, future);
+			return future;
+		}
+
+		public <Request extends ActionRequest, Response extends ActionResponse, RequestBuilder extends ActionRequestBuilder<Request, Response>>
+				void execute(IndicesAction<Request, Response, RequestBuilder> action, Request request, ActionListener<Response> listener) {
+			client.admin().indices().execute(action, request, record(action.name(), request, listener));
+		}
+	}
+
+	/**
+	 * Wrap a listener so the call is recorded when its response comes back
+	 */
+	private <Response> ActionListener<Response> record(final String action, ActionRequest request,
+			final ActionListener<Response> listener) {
+		final String index = indices(request);
+		final long start = System.nanoTime();
+		// If the listener throws in onResponse, elasticsearch calls onFailure on this wrapper:
+		// the call is recorded, and the listener called, only once
+		final AtomicBoolean done = new AtomicBoolean();
+		return new ActionListener<Response>() {
+			public void onResponse(Response response) {
+				if (done.compareAndSet(false, true)) {
+					metrics.record(action, index, System.nanoTime() - start, took(response));
+					listener.onResponse(response);
+				}
+			}
+
+			public void onFailure(Throwable e) {
+				if (done.compareAndSet(false, true)) {
+					metrics.failure(action, index);
+					listener.onFailure(e);
+				}
+			}
+		};
+	}
+
+	/**
+	 * @return time measured by elasticsearch, -1 if the response does not tell
+	 */
+	private static long took(Object response) {
+		if (response instanceof SearchResponse) {
+			return ((SearchResponse) response).getTookInMillis();
+		}
+		if (response instanceof BulkResponse) {
+			return ((BulkResponse) response).getTookInMillis();
+		}
+		return -1;
+	}
+
+	/**
+	 * @return indices of a request, "_all" for all indices, "_na" when the request has no index
+	 */
+	private static String indices(ActionRequest request) {
+		if (request instanceof SearchRequest) {
+			return names(((SearchRequest) request).indices());
+		}
+		if (request instanceof BroadcastOperationRequest) {
+			return names(((BroadcastOperationRequest) request).indices());
+		}
+		if (request instanceof SingleShardOperationRequest) {
+			return ((SingleShardOperationRequest) request).index();
+		}
+		if (request instanceof ShardReplicationOperationRequest) {
+			return ((ShardReplicationOperationRequest) request).index();
+		}
+		if (request instanceof PutMappingRequest) {
+			return names(((PutMappingRequest) request).indices());
+		}
+		if (request instanceof MultiSearchRequest) {
+			Set<String> indices = new TreeSet<String>();
+			for (SearchRequest search : ((MultiSearchRequest) request).requests()) {
+				indices.add(names(search.indices()));
+			}
+			return Strings.collectionToCommaDelimitedString(indices);
+		}
+		if (request instanceof BulkRequest) {
+			Set<String> indices = new TreeSet<String>();
+			for (ActionRequest item : ((BulkRequest) request).requests()) {
+				if (item instanceof IndexRequest) {
+					indices.add(((IndexRequest) item).index());
+				} else if (item instanceof DeleteRequest) {
+					indices.add(((DeleteRequest) item).index());
+				}
+			}
+			return Strings.collectionToCommaDelimitedString(indices);
+		}
+		return "_na";
+	}
+
+	private static String names(String[] indices) {
+		if (indices == null || indices.length == 0) {
+			return "_all";
+		}
+		return Strings.arrayToCommaDelimitedString(indices);
+	}
+}
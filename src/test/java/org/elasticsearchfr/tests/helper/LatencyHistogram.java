@@ -0,0 +1,134 @@
+package org.elasticsearchfr.tests.helper;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock free latency histogram with a precision of about 3%, from 1 microsecond to hours.
+ * <br>Values are counted in microseconds, in buckets: 32 buckets per power of two. Percentiles return
+ * the upper bound of their bucket, so they are never lower than the real value.
+ * <pre>
+ * LatencyHistogram histogram = new LatencyHistogram();
+ * histogram.record(System.nanoTime() - start);
+ * histogram.percentile(99.9);
+ * </pre>
+ * Thread safe.
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 6;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int HALF = SUB_BUCKETS / 2;
+
+	private final AtomicLongArray counts = new AtomicLongArray(SUB_BUCKETS + (64 - SUB_BUCKET_BITS) * HALF);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong total = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * @param nanos a latency in nanoseconds
+	 */
+	public void record(long nanos) {
+		record(nanos, 1);
+	}
+
+	/**
+	 * Record the same latency more than once
+	 * @param nanos a latency in nanoseconds
+	 * @param times how many times
+	 */
+	public void record(long nanos, long times) {
+		long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+		counts.addAndGet(index(micros), times);
+		count.addAndGet(times);
+		total.addAndGet(micros * times);
+
+		long current;
+		while (micros > (current = max.get())) {
+			if (max.compareAndSet(current, micros)) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * @return number of recorded values
+	 */
+	public long count() {
+		return count.get();
+	}
+
+	/**
+	 * @return mean in ms
+	 */
+	public double mean() {
+		long n = count.get();
+		return n == 0 ? 0 : total.get() / 1000.0 / n;
+	}
+
+	/**
+	 * @return max in ms
+	 */
+	public double max() {
+		return max.get() / 1000.0;
+	}
+
+	/**
+	 * @param percentile between 0 and 100
+	 * @return the latency in ms under which <code>percentile</code>% of values are
+	 */
+	public double percentile(double percentile) {
+		long n = count.get();
+		if (n == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+		long seen = 0;
+		for (int i = 0; i < counts.length(); i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				return Math.min(upperBound(i), max.get()) / 1000.0;
+			}
+		}
+		return max();
+	}
+
+	/**
+	 * Remove all values
+	 */
+	public void reset() {
+		for (int i = 0; i < counts.length(); i++) {
+			counts.set(i, 0);
+		}
+		count.set(0);
+		total.set(0);
+		max.set(0);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("count %d, mean %.2f ms, p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms",
+				count(), mean(), percentile(50), percentile(99), percentile(99.9), max());
+	}
+
+	/**
+	 * Values under SUB_BUCKETS have their own bucket. Over it, each power of two is split in HALF buckets.
+	 */
+	private static int index(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+		return SUB_BUCKETS + (shift - 1) * HALF + (int) (value >>> shift) - HALF;
+	}
+
+	private static long upperBound(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int shift = (index - SUB_BUCKETS) / HALF + 1;
+		long top = (index - SUB_BUCKETS) % HALF + HALF;
+		return ((top + 1) << shift) - 1;
+	}
+}
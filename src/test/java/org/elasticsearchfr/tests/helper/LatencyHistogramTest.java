@@ -0,0 +1,40 @@
+package org.elasticsearchfr.tests.helper;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Testing histogram percentiles and their precision
+ */
+public class LatencyHistogramTest {
+
+	@Test
+	public void percentilesWithinPrecision() throws Exception {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 100000; i++) {
+			histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+		}
+
+		Assert.assertEquals(100000, histogram.count());
+		Assert.assertEquals(50, histogram.percentile(50), 50 * 0.04);
+		Assert.assertEquals(99, histogram.percentile(99), 99 * 0.04);
+		Assert.assertEquals(99.9, histogram.percentile(99.9), 99.9 * 0.04);
+		Assert.assertEquals(100, histogram.max(), 0.001);
+
+		// Percentiles are upper bounds
+		Assert.assertTrue(histogram.percentile(50) >= 50);
+	}
+
+	@Test
+	public void resetForgetsValues() throws Exception {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(TimeUnit.MILLISECONDS.toNanos(10), 5);
+		Assert.assertEquals(5, histogram.count());
+
+		histogram.reset();
+		Assert.assertEquals(0, histogram.count());
+		Assert.assertEquals(0, histogram.percentile(99), 0);
+	}
+}
@@ -0,0 +1,401 @@
+package org.elasticsearchfr.tests.helper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.elasticsearch.ElasticSearchTimeoutException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.client.transport.TransportClient;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.ESLoggerFactory;
+import org.elasticsearch.common.transport.InetSocketTransportAddress;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearchfr.tests.dsl.FacetCatalog;
+import org.elasticsearchfr.tests.dsl.FilterCatalog;
+import org.elasticsearchfr.tests.dsl.QueryCatalog;
+
+/**
+ * Open loop load generator: searches are sent at a fixed arrival rate, whatever the response times.
+ * <ul>
+ * <li>The workload is a weighted mix of ES005 queries (<code>query:term</code>), ES006 filters
+ * (<code>filter:range</code>) and ES007 facets (<code>facet:terms</code>).</li>
+ * <li>Latency is measured from the time a search <b>should</b> have been sent. When the generator
+ * falls behind (too many searches in flight), waiting time is counted: latencies are not hidden by
+ * coordinated omission. Latency from the real send time is reported too.</li>
+ * <li>Failed searches count in latencies too, from their intended send time to the failure, so a
+ * saturated cluster failing fast does not make p99 look better.</li>
+ * <li>{@link #ramp(double, double, int, long, TimeUnit)} raises the rate step after step. The saturation
+ * point is the last step where the cluster keeps up with the rate within the latency objective.</li>
+ * </ul>
+ * The ramp is on the arrival rate, not on a number of concurrent clients: in an open loop,
+ * concurrency is an outcome (searches in flight are the rate times the latency), not an input. A
+ * fixed number of clients would wait for responses, slow down with the cluster and hide saturation.
+ * Searches in flight are reported for each step ({@link Step#getMaxInFlight()}), and
+ * {@link #maxInFlight(int)} only caps them as a safety limit.
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.elasticsearchfr.tests.helper.LoadGenerator \
+ *     -Dexec.args="local meal 50 8 10 1.5 100"
+ * </pre>
+ * Arguments are <code>local</code> (an embedded cluster with a generated corpus of
+ * <code>-Dtests.corpus.size</code> beers) or host:port, index, first rate (searches/s), steps,
+ * seconds per step, rate factor between steps (1.5) and p99 objective in ms (100).
+ */
+public class LoadGenerator {
+	private static final ESLogger logger = ESLoggerFactory.getLogger(LoadGenerator.class.getName());
+
+	/**
+	 * A step keeps up when it completes at least this part of the offered rate
+	 */
+	private static final double KEEP_UP_RATIO = 0.95;
+
+	/**
+	 * Result of one step
+	 */
+	public static class Step {
+		private final double rate;
+		private final long sent;
+		private final long completed;
+		private final long failures;
+		private final long outstanding;
+		private final int maxInFlight;
+		private final long elapsedNanos;
+		private final LatencyHistogram latency;
+		private final LatencyHistogram serviceTime;
+
+		Step(double rate, long sent, long completed, long failures, long outstanding, int maxInFlight, long elapsedNanos,
+				LatencyHistogram latency, LatencyHistogram serviceTime) {
+			this.rate = rate;
+			this.sent = sent;
+			this.completed = completed;
+			this.failures = failures;
+			this.outstanding = outstanding;
+			this.maxInFlight = maxInFlight;
+			this.elapsedNanos = elapsedNanos;
+			this.latency = latency;
+			this.serviceTime = serviceTime;
+		}
+
+		/**
+		 * @return offered searches per second
+		 */
+		public double getRate() {
+			return rate;
+		}
+
+		/**
+		 * @return completed searches per second
+		 */
+		public double getThroughput() {
+			return elapsedNanos == 0 ? 0 : completed * 1000000000.0 / elapsedNanos;
+		}
+
+		/**
+		 * @return searches sent
+		 */
+		public long getSent() {
+			return sent;
+		}
+
+		/**
+		 * @return failed searches
+		 */
+		public long getFailures() {
+			return failures;
+		}
+
+		/**
+		 * @return searches still without a response when the step gave up waiting for them. They are
+		 * not in latencies: the real p99 is even higher.
+		 */
+		public long getOutstanding() {
+			return outstanding;
+		}
+
+		/**
+		 * @return maximum number of searches in flight
+		 */
+		public int getMaxInFlight() {
+			return maxInFlight;
+		}
+
+		/**
+		 * @return latency from the intended send time (corrected for coordinated omission), failures included
+		 */
+		public LatencyHistogram getLatency() {
+			return latency;
+		}
+
+		/**
+		 * @return latency from the real send time (what a closed loop client would report)
+		 */
+		public LatencyHistogram getServiceTime() {
+			return serviceTime;
+		}
+
+		/**
+		 * @param p99Millis latency objective
+		 * @return true if the cluster kept up with the rate within the objective
+		 */
+		public boolean keepsUp(double p99Millis) {
+			return failures == 0 && outstanding == 0
+					&& getThroughput() >= rate * KEEP_UP_RATIO && latency.percentile(99) <= p99Millis;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("rate %.0f/s: %.0f/s completed, %d failures, %d outstanding, max %d in flight, latency [%s], service time p99 %.2f ms",
+					rate, getThroughput(), failures, outstanding, maxInFlight, latency, serviceTime.percentile(99));
+		}
+	}
+
+	private final Client client;
+	private final String index;
+	private final List<String> mix = new ArrayList<String>();
+	private int maxInFlight = 10000;
+	private long seed = 0;
+
+	/**
+	 * @param client
+	 * @param index index (or alias) to search
+	 */
+	public LoadGenerator(Client client, String index) {
+		this.client = client;
+		this.index = index;
+	}
+
+	/**
+	 * Add a search to the workload. Without any, all queries, filters and facets are sent in turn.
+	 * @param name <code>query:name</code>, <code>filter:name</code> or <code>facet:name</code>
+	 * (see {@link QueryCatalog}, {@link FilterCatalog} and {@link FacetCatalog})
+	 * @param weight how often this search is sent compared to the others
+	 */
+	public LoadGenerator mix(String name, int weight) {
+		// Fail now on unknown names
+		search(name);
+		for (int i = 0; i < weight; i++) {
+			mix.add(name);
+		}
+		return this;
+	}
+
+	/**
+	 * @param maxInFlight safety limit of searches in flight. Over it, the generator waits (and
+	 * waiting is counted in latencies).
+	 */
+	public LoadGenerator maxInFlight(int maxInFlight) {
+		this.maxInFlight = maxInFlight;
+		return this;
+	}
+
+	/**
+	 * @param seed seed of the random order of searches
+	 */
+	public LoadGenerator seed(long seed) {
+		this.seed = seed;
+		return this;
+	}
+
+	/**
+	 * Send searches at a fixed rate, then wait (up to a minute) for their responses
+	 * @param rate searches per second
+	 * @param duration
+	 * @param unit
+	 * @return the step result
+	 * @throws InterruptedException
+	 */
+	public Step run(double rate, long duration, TimeUnit unit) throws InterruptedException {
+		List<String> workload = workload();
+		Random random = new Random(seed);
+		AsyncSearchClient async = new AsyncSearchClient(client, maxInFlight);
+
+		final LatencyHistogram latency = new LatencyHistogram();
+		final LatencyHistogram serviceTime = new LatencyHistogram();
+		final AtomicLong completed = new AtomicLong();
+		final AtomicLong failures = new AtomicLong();
+		final AtomicInteger inFlight = new AtomicInteger();
+		int maxSeen = 0;
+		long sent = 0;
+
+		long interval = (long) (1000000000.0 / rate);
+		long start = System.nanoTime();
+		long end = start + unit.toNanos(duration);
+
+		for (long intended = start; intended < end; intended += interval) {
+			long now = System.nanoTime();
+			if (now < intended) {
+				LockSupport.parkNanos(intended - now);
+			}
+
+			final long intendedStart = intended;
+			SearchRequest request = search(workload.get(random.nextInt(workload.size()))).request();
+			maxSeen = Math.max(maxSeen, inFlight.incrementAndGet());
+			final long sendStart = System.nanoTime();
+			async.search(request, new ActionListener<SearchResponse>() {
+				public void onResponse(SearchResponse response) {
+					long done = System.nanoTime();
+					inFlight.decrementAndGet();
+					latency.record(done - intendedStart);
+					serviceTime.record(done - sendStart);
+					completed.incrementAndGet();
+				}
+
+				public void onFailure(Throwable e) {
+					inFlight.decrementAndGet();
+					// A failure is an answer the client waited for: it counts in latency
+					latency.record(System.nanoTime() - intendedStart);
+					failures.incrementAndGet();
+					logger.debug("search failed: {}", e.getMessage());
+				}
+			});
+			sent++;
+		}
+
+		int outstanding = 0;
+		try {
+			async.awaitIdle(1, TimeUnit.MINUTES);
+		} catch (ElasticSearchTimeoutException e) {
+			// Badly saturated: report the step anyway, with searches still in flight
+			outstanding = async.outstanding();
+			logger.warn("rate {}/s: {} searches still in flight after a minute", rate, outstanding);
+		}
+
+		return new Step(rate, sent, completed.get(), failures.get(), outstanding, maxSeen, System.nanoTime() - start,
+				latency, serviceTime);
+	}
+
+	/**
+	 * Run steps at growing rates, until the cluster does not keep up
+	 * @param firstRate rate of the first step (searches per second)
+	 * @param factor rate multiplier between steps
+	 * @param steps maximum number of steps
+	 * @param p99Millis latency objective
+	 * @param stepDuration duration of each step
+	 * @param unit
+	 * @return results of the steps run. The last one may be over the saturation point.
+	 * @throws InterruptedException
+	 */
+	public List<Step> ramp(double firstRate, double factor, int steps, double p99Millis,
+			long stepDuration, TimeUnit unit) throws InterruptedException {
+		List<Step> results = new ArrayList<Step>();
+		Step saturation = null;
+		double rate = firstRate;
+		for (int i = 0; i < steps; i++) {
+			Step step = run(rate, stepDuration, unit);
+			results.add(step);
+			logger.info("step {}: {}", i + 1, step);
+			if (!step.keepsUp(p99Millis)) {
+				break;
+			}
+			saturation = step;
+			rate *= factor;
+		}
+
+		if (saturation == null) {
+			logger.info("Saturated from the first step at {}/s", firstRate);
+		} else {
+			logger.info("Saturation point: {}/s with p99 {} ms (objective {} ms)",
+					String.format("%.0f", saturation.getRate()),
+					String.format("%.2f", saturation.getLatency().percentile(99)), p99Millis);
+		}
+		return results;
+	}
+
+	/**
+	 * Same as {@link #ramp(double, double, int, double, long, TimeUnit)}
+	 */
+	public List<Step> ramp(double firstRate, double factor, int steps, long stepDuration, TimeUnit unit)
+			throws InterruptedException {
+		return ramp(firstRate, factor, steps, 100, stepDuration, unit);
+	}
+
+	private List<String> workload() {
+		if (!mix.isEmpty()) {
+			return mix;
+		}
+		List<String> all = new ArrayList<String>();
+		for (String name : QueryCatalog.names()) {
+			all.add("query:" + name);
+		}
+		for (String name : FilterCatalog.names()) {
+			all.add("filter:" + name);
+		}
+		for (String name : FacetCatalog.names()) {
+			all.add("facet:" + name);
+		}
+		return all;
+	}
+
+	private SearchRequestBuilder search(String name) {
+		int colon = name.indexOf(':');
+		if (colon < 0) {
+			throw new IllegalArgumentException("Search [" + name + "] should be query:name, filter:name or facet:name");
+		}
+		String kind = name.substring(0, colon);
+		String catalogName = name.substring(colon + 1);
+
+		if ("query".equals(kind)) {
+			return client.prepareSearch(index).setQuery(QueryCatalog.query(catalogName));
+		}
+		if ("filter".equals(kind)) {
+			return client.prepareSearch(index)
+					.setQuery(QueryBuilders.filteredQuery(QueryBuilders.matchAllQuery(), FilterCatalog.filter(catalogName, true)));
+		}
+		if ("facet".equals(kind)) {
+			return client.prepareSearch(index)
+					.setQuery(QueryBuilders.matchAllQuery())
+					.setSize(0)
+					.addFacet(FacetCatalog.facet(catalogName));
+		}
+		throw new IllegalArgumentException("Unknown search kind [" + kind + "] in [" + name + "]");
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 5) {
+			System.err.println("Usage: LoadGenerator local|host:port index rate steps seconds [factor] [p99Millis]");
+			System.exit(1);
+		}
+
+		String index = args[1];
+		double rate = Double.parseDouble(args[2]);
+		int steps = Integer.parseInt(args[3]);
+		long seconds = Long.parseLong(args[4]);
+		double factor = args.length > 5 ? Double.parseDouble(args[5]) : 1.5;
+		double p99 = args.length > 6 ? Double.parseDouble(args[6]) : 100;
+
+		TestCluster cluster = null;
+		Client client;
+		if ("local".equals(args[0])) {
+			cluster = new TestCluster();
+			cluster.start();
+			client = cluster.client(0);
+			index = new CorpusFixtures(client).readOnly(new BeerCorpus(index,
+					Integer.getInteger("tests.corpus.size", 100000), Long.getLong("tests.corpus.seed", 0L)));
+		} else {
+			String[] address = args[0].split(":");
+			client = new TransportClient()
+					.addTransportAddress(new InetSocketTransportAddress(address[0], Integer.parseInt(address[1])));
+		}
+
+		try {
+			for (Step step : new LoadGenerator(client, index).ramp(rate, factor, steps, p99, seconds, TimeUnit.SECONDS)) {
+				System.out.println(step);
+			}
+		} finally {
+			if (cluster != null) {
+				cluster.close();
+			} else {
+				client.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package org.elasticsearchfr.tests.helper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.elasticsearchfr.tests.dsl.QueryCatalog;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testing the open loop load generator on a small rate
+ */
+public class LoadGeneratorTest extends TestNodeHelper {
+
+	private String index;
+
+	@Before
+	public void setUp() throws Exception {
+		index = readOnlyCorpus(MEAL);
+	}
+
+	@Test
+	public void sendAtFixedRate() throws Exception {
+		LoadGenerator.Step step = new LoadGenerator(client(), index)
+				.mix("query:term", 2)
+				.mix("filter:range", 1)
+				.mix("facet:terms", 1)
+				.run(20, 1, TimeUnit.SECONDS);
+
+		Assert.assertEquals(20, step.getSent());
+		Assert.assertEquals(0, step.getFailures());
+		Assert.assertEquals(20, step.getLatency().count());
+		// Latency from the intended send time includes the service time
+		Assert.assertTrue(step.getLatency().max() >= step.getServiceTime().max());
+	}
+
+	@Test
+	public void replayAllQueries() throws Exception {
+		LoadGenerator generator = new LoadGenerator(client(), index);
+		for (String name : QueryCatalog.names()) {
+			generator.mix("query:" + name, 1);
+		}
+		LoadGenerator.Step step = generator.run(50, 1, TimeUnit.SECONDS);
+
+		Assert.assertEquals(50, step.getSent());
+		Assert.assertEquals(0, step.getFailures());
+		Assert.assertEquals(step.getSent(), step.getLatency().count());
+	}
+
+	@Test
+	public void failuresCountInLatency() throws Exception {
+		LoadGenerator.Step step = new LoadGenerator(client(), "no_such_index")
+				.mix("query:matchAll", 1)
+				.run(10, 1, TimeUnit.SECONDS);
+
+		Assert.assertEquals(10, step.getFailures());
+		Assert.assertEquals(10, step.getLatency().count());
+		Assert.assertEquals(0, step.getOutstanding());
+		Assert.assertFalse(step.keepsUp(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void rampStopsAtSaturation() throws Exception {
+		// No search can answer in less than 0 ms: the first step is already saturated
+		List<LoadGenerator.Step> steps = new LoadGenerator(client(), index)
+				.mix("query:matchAll", 1)
+				.ramp(10, 2, 5, 0, 500, TimeUnit.MILLISECONDS);
+
+		Assert.assertEquals(1, steps.size());
+	}
+}
@@ -0,0 +1,332 @@
+package org.elasticsearchfr.tests.helper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.client.transport.TransportClient;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.ESLoggerFactory;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.transport.InetSocketTransportAddress;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearchfr.tests.bean.BeerCodec;
+import org.elasticsearchfr.tests.bean.BeerGenerator;
+
+/**
+ * Near real time harness: how long does a beer take to be searchable once its bulk is acknowledged?
+ * <ul>
+ * <li>A writer indexes generated beers in bulks, as fast as it can, in a fresh index created with
+ * an <code>index.refresh_interval</code>, one shard and no replica.</li>
+ * <li>A reader counts searchable beers every few milliseconds. Beers are only written by the
+ * writer, in order: when the count reaches the end of a bulk, the whole bulk is visible. Its
+ * visibility lag, from the bulk acknowledgement, is recorded for each beer of the bulk.</li>
+ * <li>With a refresh interval of <code>-1</code>, nothing refreshes by itself: the writer refreshes
+ * every {@link #manualRefreshEvery(int)} bulks, as tests do after loading.</li>
+ * </ul>
+ * {@link #sweep(List, long, TimeUnit)} runs each interval in turn and compares ingest throughput with
+ * visibility lag. Lags are as precise as the reader poll interval.
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.elasticsearchfr.tests.helper.RefreshLagHarness \
+ *     -Dexec.args="local lag 10 -1 100ms 1s 5s"
+ * </pre>
+ * Arguments are <code>local</code> (an embedded cluster) or host:port, index to create (and delete),
+ * seconds per interval, then refresh intervals.
+ */
+public class RefreshLagHarness {
+	private static final ESLogger logger = ESLoggerFactory.getLogger(RefreshLagHarness.class.getName());
+
+	/**
+	 * Result of one refresh interval
+	 */
+	public static class Result {
+		private final String refreshInterval;
+		private final long indexed;
+		private final long visible;
+		private final long refreshes;
+		private final long elapsedNanos;
+		private final LatencyHistogram lag;
+
+		Result(String refreshInterval, long indexed, long visible, long refreshes, long elapsedNanos, LatencyHistogram lag) {
+			this.refreshInterval = refreshInterval;
+			this.indexed = indexed;
+			this.visible = visible;
+			this.refreshes = refreshes;
+			this.elapsedNanos = elapsedNanos;
+			this.lag = lag;
+		}
+
+		/**
+		 * @return the index.refresh_interval setting
+		 */
+		public String getRefreshInterval() {
+			return refreshInterval;
+		}
+
+		/**
+		 * @return beers acknowledged by the writer
+		 */
+		public long getIndexed() {
+			return indexed;
+		}
+
+		/**
+		 * @return beers the reader has seen. Lower than {@link #getIndexed()} if the last ones
+		 * did not show up in time.
+		 */
+		public long getVisible() {
+			return visible;
+		}
+
+		/**
+		 * @return refreshes sent by the writer (only with a refresh interval of -1)
+		 */
+		public long getRefreshes() {
+			return refreshes;
+		}
+
+		/**
+		 * @return beers indexed per second
+		 */
+		public double getThroughput() {
+			return elapsedNanos == 0 ? 0 : indexed * 1000000000.0 / elapsedNanos;
+		}
+
+		/**
+		 * @return visibility lag of each beer, from the acknowledgement of its bulk
+		 */
+		public LatencyHistogram getLag() {
+			return lag;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("refresh interval %s: %.0f beers/s, %d indexed, %d visible, %d manual refreshes, lag [%s]",
+					refreshInterval, getThroughput(), indexed, visible, refreshes, lag);
+		}
+	}
+
+	/**
+	 * An acknowledged bulk: beers before <code>end</code> are written
+	 */
+	private static class Ack {
+		private final long end;
+		private final long size;
+		private final long nanos;
+
+		Ack(long end, long size, long nanos) {
+			this.end = end;
+			this.size = size;
+			this.nanos = nanos;
+		}
+	}
+
+	private final Client client;
+	private final String index;
+	private int bulkSize = 100;
+	private long pollMillis = 5;
+	private int manualRefreshEvery = 1;
+	private long seed = 0;
+
+	/**
+	 * @param client
+	 * @param index index to create for each run. It is deleted after the run.
+	 */
+	public RefreshLagHarness(Client client, String index) {
+		this.client = client;
+		this.index = index;
+	}
+
+	/**
+	 * @param bulkSize beers per bulk (100 by default)
+	 */
+	public RefreshLagHarness bulkSize(int bulkSize) {
+		this.bulkSize = bulkSize;
+		return this;
+	}
+
+	/**
+	 * @param pollMillis time between two counts of the reader (5 ms by default)
+	 */
+	public RefreshLagHarness pollMillis(long pollMillis) {
+		this.pollMillis = pollMillis;
+		return this;
+	}
+
+	/**
+	 * @param bulks with a refresh interval of -1, refresh after this number of bulks (1 by default)
+	 */
+	public RefreshLagHarness manualRefreshEvery(int bulks) {
+		this.manualRefreshEvery = bulks;
+		return this;
+	}
+
+	/**
+	 * @param seed seed of generated beers
+	 */
+	public RefreshLagHarness seed(long seed) {
+		this.seed = seed;
+		return this;
+	}
+
+	/**
+	 * Index beers for a while with a refresh interval, then wait for the last ones to be visible
+	 * @param refreshInterval index.refresh_interval: <code>1s</code>, <code>100ms</code>... or <code>-1</code>
+	 * @param duration
+	 * @param unit
+	 * @return the run result
+	 * @throws Exception
+	 */
+	public Result run(String refreshInterval, long duration, TimeUnit unit) throws Exception {
+		final boolean manual = "-1".equals(refreshInterval.trim());
+		client.admin().indices().prepareCreate(index)
+				.setSettings(ImmutableSettings.settingsBuilder()
+						.put("index.refresh_interval", refreshInterval)
+						// With more shards (or replicas) a bulk would be partly visible while the count grows
+						.put("index.number_of_shards", 1)
+						.put("index.number_of_replicas", 0))
+				.addMapping(BeerCorpus.TYPE, BeerCorpus.mapping())
+				.execute().actionGet();
+		client.admin().cluster().prepareHealth(index).setWaitForYellowStatus().execute().actionGet();
+
+		final ConcurrentLinkedQueue<Ack> acks = new ConcurrentLinkedQueue<Ack>();
+		final LatencyHistogram lag = new LatencyHistogram();
+		final AtomicLong visible = new AtomicLong();
+		final AtomicLong written = new AtomicLong(-1);
+		final AtomicReference<Exception> readerFailure = new AtomicReference<Exception>();
+
+		Thread reader = new Thread(new Runnable() {
+			public void run() {
+				try {
+					// Stop once every acknowledged beer has been seen, after the writer is done
+					while (written.get() < 0 || visible.get() < written.get()) {
+						long count = client.prepareCount(index).setQuery(QueryBuilders.matchAllQuery())
+								.execute().actionGet().getCount();
+						long now = System.nanoTime();
+						visible.set(count);
+						Ack ack;
+						while ((ack = acks.peek()) != null && ack.end <= count) {
+							lag.record(now - ack.nanos, ack.size);
+							acks.poll();
+						}
+						Thread.sleep(pollMillis);
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} catch (Exception e) {
+					// Lags seen so far would be a partial result: run() fails with this exception
+					readerFailure.set(e);
+				}
+			}
+		}, "refresh-lag-reader");
+		reader.setDaemon(true);
+		reader.start();
+
+		BeerGenerator generator = new BeerGenerator(seed);
+		BeerCodec codec = BeerCodec.local();
+		long id = 0;
+		long bulks = 0;
+		long refreshes = 0;
+		long start = System.nanoTime();
+		long end = start + unit.toNanos(duration);
+		try {
+			while (System.nanoTime() < end) {
+				BulkRequestBuilder bulk = client.prepareBulk();
+				long from = id;
+				for (; id < from + bulkSize; id++) {
+					bulk.add(new IndexRequest(index, BeerCorpus.TYPE, "beer_" + id).source(codec.encode(generator.beer(id))));
+				}
+				BulkResponse response = bulk.execute().actionGet();
+				if (response.hasFailures()) {
+					throw new Exception("Could not index beers in [" + index + "]: " + response.buildFailureMessage());
+				}
+				acks.add(new Ack(id, bulkSize, System.nanoTime()));
+
+				if (manual && ++bulks % manualRefreshEvery == 0) {
+					client.admin().indices().prepareRefresh(index).execute().actionGet();
+					refreshes++;
+				}
+			}
+			long elapsed = System.nanoTime() - start;
+
+			if (manual) {
+				client.admin().indices().prepareRefresh(index).execute().actionGet();
+				refreshes++;
+			}
+			written.set(id);
+			reader.join(TimeUnit.MINUTES.toMillis(1));
+			if (readerFailure.get() != null) {
+				throw new Exception("Could not count beers in [" + index + "]", readerFailure.get());
+			}
+
+			return new Result(refreshInterval, id, visible.get(), refreshes, elapsed, lag);
+		} finally {
+			reader.interrupt();
+			client.admin().indices().prepareDelete(index).execute().actionGet();
+		}
+	}
+
+	/**
+	 * Run each refresh interval in turn
+	 * @param refreshIntervals
+	 * @param duration duration of each run
+	 * @param unit
+	 * @return results, in the same order
+	 * @throws Exception
+	 */
+	public List<Result> sweep(List<String> refreshIntervals, long duration, TimeUnit unit) throws Exception {
+		List<Result> results = new ArrayList<Result>();
+		for (String refreshInterval : refreshIntervals) {
+			Result result = run(refreshInterval, duration, unit);
+			logger.info("{}", result);
+			results.add(result);
+		}
+		return results;
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 4) {
+			System.err.println("Usage: RefreshLagHarness local|host:port index seconds interval [interval...]");
+			System.exit(1);
+		}
+
+		String index = args[1];
+		long seconds = Long.parseLong(args[2]);
+		List<String> intervals = new ArrayList<String>();
+		for (int i = 3; i < args.length; i++) {
+			intervals.add(args[i]);
+		}
+
+		TestCluster cluster = null;
+		Client client;
+		if ("local".equals(args[0])) {
+			cluster = new TestCluster();
+			cluster.start();
+			client = cluster.client(0);
+		} else {
+			String[] address = args[0].split(":");
+			client = new TransportClient()
+					.addTransportAddress(new InetSocketTransportAddress(address[0], Integer.parseInt(address[1])));
+		}
+
+		try {
+			for (Result result : new RefreshLagHarness(client, index).sweep(intervals, seconds, TimeUnit.SECONDS)) {
+				System.out.println(result);
+			}
+		} finally {
+			if (cluster != null) {
+				cluster.close();
+			} else {
+				client.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package org.elasticsearchfr.tests.helper;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Testing the refresh lag harness on short runs
+ */
+public class RefreshLagHarnessTest extends TestNodeHelper {
+
+	@Test
+	public void everyIndexedBeerBecomesVisible() throws Exception {
+		RefreshLagHarness.Result result = new RefreshLagHarness(client(), index("lag"))
+				.bulkSize(50)
+				.run("100ms", 500, TimeUnit.MILLISECONDS);
+
+		Assert.assertTrue(result.getIndexed() > 0);
+		Assert.assertEquals(result.getIndexed(), result.getVisible());
+		Assert.assertEquals(result.getIndexed(), result.getLag().count());
+		Assert.assertEquals(0, result.getRefreshes());
+	}
+
+	@Test
+	public void manualRefreshAfterBulks() throws Exception {
+		List<RefreshLagHarness.Result> results = new RefreshLagHarness(client(), index("lag"))
+				.bulkSize(50)
+				.manualRefreshEvery(2)
+				.sweep(Arrays.asList("-1"), 500, TimeUnit.MILLISECONDS);
+
+		RefreshLagHarness.Result result = results.get(0);
+		Assert.assertEquals(result.getIndexed(), result.getVisible());
+		// One refresh every 2 bulks, and a last one at the end
+		Assert.assertEquals(result.getIndexed() / 50 / 2 + 1, result.getRefreshes());
+	}
+}
@@ -0,0 +1,210 @@
+package org.elasticsearchfr.tests.helper;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.admin.indices.delete.DeleteIndexResponse;
+import org.elasticsearch.action.admin.indices.template.put.PutIndexTemplateRequestBuilder;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MappingMetaData;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.ESLoggerFactory;
+import org.elasticsearch.common.settings.ImmutableSettings;
+
+/**
+ * A writable copy of a corpus behind an alias, which tests can modify then {@link #reset()}.
+ * <ul>
+ * <li>The corpus lives in generations: <code>alias_gen0</code>, <code>alias_gen1</code>... The alias
+ * points to one of them.</li>
+ * <li>Mappings and shards of the first generation are stored as an index template matching
+ * <code>alias_gen*</code>: next generations are created from the template.</li>
+ * <li>The next generation is copied from the read-only corpus in the background. {@link #reset()}
+ * switches the alias to it in one atomic aliases request, deletes the old generation without waiting,
+ * and starts copying the following one.</li>
+ * </ul>
+ * A reset takes the same time whatever the corpus size, unless tests reset faster than a corpus copy:
+ * then it waits for the next generation to be ready. When a copy failed, the reset copies again once.
+ * <br>{@link #close()} removes generations and the template.
+ */
+public class ResettableCorpus {
+	private static final ESLogger logger = ESLoggerFactory.getLogger(ResettableCorpus.class.getName());
+
+	private final Client client;
+	private final CorpusFixtures fixtures;
+	private final Corpus corpus;
+	private final String alias;
+	private final AtomicInteger generations = new AtomicInteger();
+	private final ExecutorService executor;
+
+	private String source;
+	private String current;
+	private String nextIndex;
+	private Future<String> next;
+
+	ResettableCorpus(Client client, CorpusFixtures fixtures, Corpus corpus, final String alias) {
+		this.client = client;
+		this.fixtures = fixtures;
+		this.corpus = corpus;
+		this.alias = alias;
+		this.executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "corpus-reset-" + alias);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Build the first generation, publish it under the alias and store the template
+	 * @throws Exception
+	 */
+	synchronized void open() throws Exception {
+		source = fixtures.readOnly(corpus);
+
+		current = generation(generations.getAndIncrement());
+		corpus.create(client, current);
+		putTemplate(current);
+		fill(current);
+		client.admin().indices().prepareAliases().addAlias(current, alias).execute().actionGet();
+
+		prepareNext();
+	}
+
+	/**
+	 * @return the name to search and modify
+	 */
+	public String getAlias() {
+		return alias;
+	}
+
+	/**
+	 * @return the generation the alias points to
+	 */
+	public synchronized String getIndex() {
+		return current;
+	}
+
+	/**
+	 * Point the alias to a fresh copy of the corpus. The old generation is deleted in the background.
+	 * @throws Exception
+	 */
+	public synchronized void reset() throws Exception {
+		long start = System.currentTimeMillis();
+		String fresh;
+		try {
+			fresh = next.get();
+		} catch (ExecutionException e) {
+			// Do not keep a failed copy forever: start a new generation and wait for it.
+			// If it fails too, the exception is thrown and the next reset tries again.
+			logger.warn("[{}] could not copy generation [{}], copying again: {}", alias, nextIndex, e.getCause().getMessage());
+			delete(nextIndex);
+			prepareNext();
+			fresh = next.get();
+		}
+		String old = current;
+
+		// Searches see either the old or the fresh generation, never none
+		client.admin().indices().prepareAliases()
+				.removeAlias(old, alias)
+				.addAlias(fresh, alias)
+				.execute().actionGet();
+		current = fresh;
+		delete(old);
+		prepareNext();
+
+		logger.debug("[{}] reset from [{}] to [{}] in {} ms", alias, old, fresh, System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * Remove all generations and the template
+	 * @throws Exception
+	 */
+	public synchronized void close() throws Exception {
+		try {
+			if (next != null) {
+				try {
+					next.get();
+				} catch (ExecutionException e) {
+					logger.debug("[{}] generation [{}] was not copied: {}", alias, nextIndex, e.getCause().getMessage());
+				}
+				delete(nextIndex);
+			}
+		} finally {
+			executor.shutdownNow();
+			if (current != null) {
+				client.admin().indices().prepareDelete(current).execute().actionGet();
+			}
+			client.admin().indices().prepareDeleteTemplate(template()).execute().actionGet();
+		}
+	}
+
+	private void prepareNext() {
+		final String index = generation(generations.getAndIncrement());
+		nextIndex = index;
+		next = executor.submit(new Callable<String>() {
+			public String call() throws Exception {
+				// Mappings and settings come from the template
+				client.admin().indices().prepareCreate(index).execute().actionGet();
+				fill(index);
+				return index;
+			}
+		});
+	}
+
+	private void fill(String index) throws Exception {
+		client.admin().cluster().prepareHealth(index).setWaitForYellowStatus().execute().actionGet();
+		fixtures.copy(source, index);
+		client.admin().indices().prepareRefresh(index).execute().actionGet();
+	}
+
+	/**
+	 * Store what {@link Corpus#create(Client, String)} gave to an index as a template for next generations
+	 */
+	private void putTemplate(String index) {
+		IndexMetaData metaData = client.admin().cluster().prepareState().execute().actionGet()
+				.getState().metaData().index(index);
+		PutIndexTemplateRequestBuilder template = client.admin().indices().preparePutTemplate(template())
+				.setTemplate(alias + "_gen*")
+				.setSettings(ImmutableSettings.settingsBuilder()
+						.put("index.number_of_shards", metaData.numberOfShards())
+						.put("index.number_of_replicas", metaData.numberOfReplicas()));
+		for (Map.Entry<String, MappingMetaData> mapping : metaData.mappings().entrySet()) {
+			template.addMapping(mapping.getKey(), mapping.getValue().source().string());
+		}
+		template.execute().actionGet();
+	}
+
+	private void delete(final String index) {
+		client.admin().indices().prepareDelete(index).execute(new ActionListener<DeleteIndexResponse>() {
+			public void onResponse(DeleteIndexResponse response) {
+				logger.debug("[{}] generation [{}] deleted", alias, index);
+			}
+
+			public void onFailure(Throwable e) {
+				logger.warn("[{}] could not delete generation [{}]: {}", alias, index, e.getMessage());
+			}
+		});
+	}
+
+	private String generation(int n) {
+		return alias + "_gen" + n;
+	}
+
+	private String template() {
+		return alias + "_template";
+	}
+
+	@Override
+	public String toString() {
+		return alias + " (" + corpus + ")";
+	}
+}
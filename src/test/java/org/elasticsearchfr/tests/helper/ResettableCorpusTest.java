@@ -0,0 +1,56 @@
+package org.elasticsearchfr.tests.helper;
+
+import org.elasticsearch.index.query.QueryBuilders;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testing corpus reset with alias swaps
+ */
+public class ResettableCorpusTest extends TestNodeHelper {
+
+	private ResettableCorpus corpus;
+
+	@Before
+	public void setUp() throws Exception {
+		corpus = resettableCorpus(MEAL, "reset");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		corpus.close();
+	}
+
+	@Test
+	public void resetGivesTheCorpusBack() throws Exception {
+		String alias = corpus.getAlias();
+		Assert.assertEquals(MEAL.getSize(), count(alias));
+
+		client().prepareDeleteByQuery(alias).setQuery(QueryBuilders.matchAllQuery()).execute().actionGet();
+		client().admin().indices().prepareRefresh(alias).execute().actionGet();
+		Assert.assertEquals(0, count(alias));
+
+		String before = corpus.getIndex();
+		corpus.reset();
+		Assert.assertFalse(before.equals(corpus.getIndex()));
+		Assert.assertEquals(MEAL.getSize(), count(alias));
+	}
+
+	@Test
+	public void nextGenerationsComeFromTheTemplate() throws Exception {
+		corpus.reset();
+		corpus.reset();
+
+		// Nested ingredients are only searchable with the corpus mapping
+		long found = client().prepareSearch(corpus.getAlias())
+				.setQuery(QueryBuilders.nestedQuery("ingredients", QueryBuilders.matchAllQuery()))
+				.execute().actionGet().getHits().getTotalHits();
+		Assert.assertEquals(MEAL.getGenerator().getIngredients() > 0 ? MEAL.getSize() : 0, found);
+	}
+
+	private long count(String index) {
+		return client().prepareCount(index).setQuery(QueryBuilders.matchAllQuery()).execute().actionGet().getCount();
+	}
+}
@@ -0,0 +1,195 @@
+package org.elasticsearchfr.tests.helper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.ESLoggerFactory;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.query.FilterBuilder;
+import org.elasticsearch.index.query.FilterBuilders;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.RangeFilterBuilder;
+import org.elasticsearch.search.SearchHit;
+
+/**
+ * Export all the documents of an index with scan and scroll.
+ * <ul>
+ * <li>Hits are pushed to a {@link HitHandler} page after page: memory holds one page per slice.</li>
+ * <li>The index can be split in slices (filters which do not overlap). Each slice is scrolled
+ * by its own thread.</li>
+ * </ul>
+ * <pre>
+ * long exported = new ScanExporter(client)
+ *         .slices(ScanExporter.rangeSlices("price", 0, 10, 4))
+ *         .export("meal", handler);
+ * </pre>
+ */
+public class ScanExporter {
+	private static final ESLogger logger = ESLoggerFactory.getLogger(ScanExporter.class.getName());
+
+	/**
+	 * Receive exported hits
+	 */
+	public static interface HitHandler {
+		/**
+		 * Called for each hit. With more than one slice, this is called by many threads at the same time.
+		 * @param hit
+		 * @throws Exception stop the export
+		 */
+		void hit(SearchHit hit) throws Exception;
+	}
+
+	private final Client client;
+	private QueryBuilder query = QueryBuilders.matchAllQuery();
+	private FilterBuilder[] slices = null;
+	private String[] fields = null;
+	private int size = 1000;
+	private TimeValue keepAlive = TimeValue.timeValueMinutes(1);
+
+	/**
+	 * @param client
+	 */
+	public ScanExporter(Client client) {
+		this.client = client;
+	}
+
+	/**
+	 * @param query documents to export (all by default)
+	 */
+	public ScanExporter query(QueryBuilder query) {
+		this.query = query;
+		return this;
+	}
+
+	/**
+	 * @param slices filters splitting the documents. They must not overlap. Null to scroll once.
+	 */
+	public ScanExporter slices(FilterBuilder... slices) {
+		this.slices = slices;
+		return this;
+	}
+
+	/**
+	 * @param fields fields to get with each hit, such as <code>_parent</code> or <code>_routing</code>.
+	 * Add <code>_source</code> to get the source too. Null for the source only (default).
+	 */
+	public ScanExporter fields(String... fields) {
+		this.fields = fields;
+		return this;
+	}
+
+	/**
+	 * @param size hits per shard for each scroll request
+	 */
+	public ScanExporter size(int size) {
+		this.size = size;
+		return this;
+	}
+
+	/**
+	 * @param keepAlive time to keep a scroll open between two pages
+	 */
+	public ScanExporter keepAlive(TimeValue keepAlive) {
+		this.keepAlive = keepAlive;
+		return this;
+	}
+
+	/**
+	 * Split a numeric field in <code>n</code> ranges of the same width between min and max.
+	 * <br>The first and last ranges are open, so values out of [min, max] are exported too.
+	 * @param field numeric field
+	 * @param min
+	 * @param max
+	 * @param n number of slices
+	 * @return range filters
+	 */
+	public static FilterBuilder[] rangeSlices(String field, double min, double max, int n) {
+		FilterBuilder[] slices = new FilterBuilder[n];
+		double width = (max - min) / n;
+		for (int i = 0; i < n; i++) {
+			RangeFilterBuilder range = FilterBuilders.rangeFilter(field);
+			if (i > 0) {
+				range.gte(min + i * width);
+			}
+			if (i < n - 1) {
+				range.lt(min + (i + 1) * width);
+			}
+			slices[i] = range;
+		}
+		return slices;
+	}
+
+	/**
+	 * Export documents
+	 * @param index index (or alias) to export
+	 * @param handler receives every hit
+	 * @return the number of exported hits
+	 * @throws Exception if a slice fails or the handler throws an exception
+	 */
+	public long export(final String index, final HitHandler handler) throws Exception {
+		if (slices == null || slices.length < 2) {
+			return scroll(index, slices == null || slices.length == 0 ? null : slices[0], handler);
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(slices.length);
+		try {
+			List<Future<Long>> futures = new ArrayList<Future<Long>>();
+			for (final FilterBuilder slice : slices) {
+				futures.add(executor.submit(new Callable<Long>() {
+					public Long call() throws Exception {
+						return scroll(index, slice, handler);
+					}
+				}));
+			}
+
+			long exported = 0;
+			for (Future<Long> future : futures) {
+				exported += future.get();
+			}
+			return exported;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Scroll one slice
+	 */
+	private long scroll(String index, FilterBuilder slice, HitHandler handler) throws Exception {
+		QueryBuilder qb = slice == null ? query : QueryBuilders.filteredQuery(query, slice);
+		SearchRequestBuilder srb = client.prepareSearch(index)
+				.setSearchType(SearchType.SCAN)
+				.setScroll(keepAlive)
+				.setQuery(qb)
+				.setSize(size);
+		if (fields != null) {
+			srb.addFields(fields);
+		}
+		SearchResponse sr = srb.execute().actionGet();
+
+		long exported = 0;
+		while (true) {
+			sr = client.prepareSearchScroll(sr.getScrollId()).setScroll(keepAlive).execute().actionGet();
+			if (sr.getHits().getHits().length == 0) {
+				break;
+			}
+			for (SearchHit hit : sr.getHits()) {
+				handler.hit(hit);
+			}
+			exported += sr.getHits().getHits().length;
+		}
+
+		logger.debug("Slice [{}] of [{}]: {} hits exported", slice, index, exported);
+		return exported;
+	}
+}
@@ -0,0 +1,52 @@
+package org.elasticsearchfr.tests.helper;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.elasticsearch.search.SearchHit;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testing that exports see every document once
+ */
+public class ScanExporterTest extends TestNodeHelper {
+
+	private String index;
+
+	@Before
+	public void setUp() throws Exception {
+		index = readOnlyCorpus(MEAL);
+	}
+
+	@Test
+	public void exportWithOneScroll() throws Exception {
+		final Set<String> ids = Collections.synchronizedSet(new HashSet<String>());
+		long exported = new ScanExporter(client()).size(100).export(index, new ScanExporter.HitHandler() {
+			public void hit(SearchHit hit) throws Exception {
+				ids.add(hit.getId());
+			}
+		});
+
+		Assert.assertEquals(MEAL.getSize(), exported);
+		Assert.assertEquals(MEAL.getSize(), ids.size());
+	}
+
+	@Test
+	public void exportWithSlices() throws Exception {
+		final Set<String> ids = Collections.synchronizedSet(new HashSet<String>());
+		long exported = new ScanExporter(client())
+				.size(100)
+				.slices(ScanExporter.rangeSlices("price", 0, 10, 4))
+				.export(index, new ScanExporter.HitHandler() {
+					public void hit(SearchHit hit) throws Exception {
+						Assert.assertTrue("Hit [" + hit.getId() + "] exported twice", ids.add(hit.getId()));
+					}
+				});
+
+		Assert.assertEquals(MEAL.getSize(), exported);
+		Assert.assertEquals(MEAL.getSize(), ids.size());
+	}
+}
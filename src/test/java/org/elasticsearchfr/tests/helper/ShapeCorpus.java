@@ -0,0 +1,218 @@
+package org.elasticsearchfr.tests.helper;
+
+import java.util.Random;
+
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.ESLoggerFactory;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+
+/**
+ * A corpus of random polygons indexed in a <code>geo_shape</code> field.
+ * <ul>
+ * <li>Type <code>area</code>: polygons <code>area_0</code> to <code>area_(size-1)</code>. Each polygon only depends
+ * on the seed and its id (see {@link #polygon(long)}). Polygons are star shaped (never self-intersecting),
+ * have 4 to 12 vertices and a radius of 0.05 to 1 degree.</li>
+ * <li>Type <code>countries</code>: a few coarse country outlines (France, Belgium, Netherlands, Germany,
+ * United Kingdom, New Zealand) to search with pre-indexed shapes.</li>
+ * </ul>
+ * Shapes are indexed in a prefix tree: <code>geohash</code> or <code>quadtree</code>, with a number of levels.
+ * More levels give more precise searches but more terms per shape, so a bigger index.
+ * <br>Elasticsearch looks for pre-indexed shapes in the <code>shape</code> field of the <code>shapes</code>
+ * index by default: publish this corpus as <code>shapes</code> to use these defaults.
+ */
+public class ShapeCorpus implements Corpus {
+	private static final ESLogger logger = ESLoggerFactory.getLogger(ShapeCorpus.class.getName());
+
+	public static final String TYPE = "area";
+
+	public static final String COUNTRIES = "countries";
+
+	/**
+	 * Name of the geo_shape field
+	 */
+	public static final String FIELD = "shape";
+
+	private static final int BULK_SIZE = 1000;
+
+	/**
+	 * Country outlines, as lon/lat points. Far from real borders but good enough to search.
+	 */
+	private static final Object[][] COUNTRY_OUTLINES = {
+		{"France", new double[][] {{-4.8, 48.4}, {-1.8, 43.4}, {3.2, 42.4}, {7.6, 43.7}, {8.2, 49.0}, {2.5, 51.1}, {-4.8, 48.4}}},
+		{"Belgium", new double[][] {{2.5, 51.1}, {2.6, 50.8}, {4.2, 49.9}, {5.8, 49.5}, {6.4, 50.3}, {5.9, 50.8}, {4.3, 51.4}, {2.5, 51.1}}},
+		{"Netherlands", new double[][] {{3.4, 51.4}, {5.9, 50.8}, {7.2, 52.2}, {7.2, 53.3}, {4.8, 53.4}, {3.4, 51.4}}},
+		{"Germany", new double[][] {{6.0, 51.0}, {8.2, 49.0}, {7.6, 47.6}, {13.0, 47.5}, {13.8, 48.8}, {15.0, 51.0}, {14.2, 53.9}, {8.6, 54.9}, {7.0, 53.3}, {6.0, 51.0}}},
+		{"United Kingdom", new double[][] {{-5.7, 50.0}, {1.8, 51.2}, {1.7, 52.8}, {-2.0, 55.8}, {-1.8, 57.6}, {-5.0, 58.6}, {-6.2, 56.5}, {-3.0, 54.4}, {-5.2, 51.7}, {-5.7, 50.0}}},
+		{"New Zealand", new double[][] {{166.5, -46.0}, {169.0, -47.0}, {174.5, -41.7}, {178.5, -37.7}, {174.6, -34.4}, {172.6, -34.4}, {172.0, -40.5}, {166.5, -46.0}}}
+	};
+
+	private final String name;
+	private final int size;
+	private final long seed;
+	private final String tree;
+	private final int treeLevels;
+
+	/**
+	 * Shapes indexed in a geohash tree with the elasticsearch default number of levels
+	 * @param name
+	 * @param size number of polygons
+	 * @param seed random seed
+	 */
+	public ShapeCorpus(String name, int size, long seed) {
+		this(name, size, seed, "geohash", 0);
+	}
+
+	/**
+	 * @param name
+	 * @param size number of polygons
+	 * @param seed random seed
+	 * @param tree prefix tree: geohash or quadtree
+	 * @param treeLevels number of tree levels, 0 for the elasticsearch default
+	 */
+	public ShapeCorpus(String name, int size, long seed, String tree, int treeLevels) {
+		this.name = name;
+		this.size = size;
+		this.seed = seed;
+		this.tree = tree;
+		this.treeLevels = treeLevels;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getKey() {
+		return (name + "_" + size + "_" + seed + "_" + tree + "_" + treeLevels).toLowerCase();
+	}
+
+	/**
+	 * @return the number of polygons
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * @return the prefix tree: geohash or quadtree
+	 */
+	public String getTree() {
+		return tree;
+	}
+
+	/**
+	 * @return the number of tree levels, 0 for the elasticsearch default
+	 */
+	public int getTreeLevels() {
+		return treeLevels;
+	}
+
+	public void create(Client client, String index) throws Exception {
+		client.admin().indices().prepareCreate(index)
+				.addMapping(TYPE, mapping(TYPE))
+				.addMapping(COUNTRIES, mapping(COUNTRIES))
+				.execute().actionGet();
+	}
+
+	/**
+	 * @param type
+	 * @return a mapping with the geo_shape field in the tree of this corpus
+	 * @throws Exception
+	 */
+	public XContentBuilder mapping(String type) throws Exception {
+		XContentBuilder mapping = XContentFactory.jsonBuilder()
+				.startObject()
+					.startObject(type)
+						.startObject("properties")
+							.startObject(FIELD)
+								.field("type", "geo_shape")
+								.field("tree", tree);
+		if (treeLevels > 0) {
+			mapping.field("tree_levels", treeLevels);
+		}
+		return mapping.endObject().endObject().endObject().endObject();
+	}
+
+	public void load(Client client, String index) throws Exception {
+		BulkLoader loader = BulkLoader.builder(client)
+				.actions(BULK_SIZE)
+				.build();
+		try {
+			for (Object[] country : COUNTRY_OUTLINES) {
+				loader.add(new IndexRequest(index, COUNTRIES, (String) country[0])
+						.source(source((String) country[0], (double[][]) country[1])));
+			}
+			for (long id = 0; id < size; id++) {
+				loader.add(new IndexRequest(index, TYPE, "area_" + id).source(source("area_" + id, polygon(id))));
+			}
+		} finally {
+			loader.close();
+		}
+
+		BulkLoader.Stats stats = loader.stats();
+		logger.debug("Corpus [{}] loaded: {}", this, stats);
+		if (stats.getFailures() > 0) {
+			throw new Exception("Could not index " + stats.getFailures() + " shapes in [" + index + "]");
+		}
+	}
+
+	/**
+	 * @param id polygon id
+	 * @return the centre of the polygon as lon, lat
+	 */
+	public double[] centre(long id) {
+		Random random = random(id);
+		return new double[] {random.nextDouble() * 356 - 178, random.nextDouble() * 130 - 60};
+	}
+
+	/**
+	 * @param id polygon id
+	 * @return the polygon as a closed ring of lon, lat points, counterclockwise
+	 */
+	public double[][] polygon(long id) {
+		Random random = random(id);
+		double lon = random.nextDouble() * 356 - 178;
+		double lat = random.nextDouble() * 130 - 60;
+		double radius = 0.05 + random.nextDouble() * 0.95;
+		int vertices = 4 + random.nextInt(9);
+
+		double[][] ring = new double[vertices + 1][];
+		double step = 2 * Math.PI / vertices;
+		for (int i = 0; i < vertices; i++) {
+			// Angles always grow and each vertex keeps its own sector: the polygon can not cross itself
+			double angle = step * (i + 0.1 + random.nextDouble() * 0.8);
+			double r = radius * (0.5 + random.nextDouble() * 0.5);
+			ring[i] = new double[] {lon + r * Math.cos(angle), lat + r * Math.sin(angle)};
+		}
+		ring[vertices] = ring[0];
+		return ring;
+	}
+
+	private Random random(long id) {
+		return new Random(seed ^ (id * 0x9e3779b97f4a7c15L));
+	}
+
+	/**
+	 * @return <code>{"name": name, "shape": {"type": "polygon", "coordinates": [ring]}}</code>
+	 */
+	private static XContentBuilder source(String name, double[][] ring) throws Exception {
+		XContentBuilder source = XContentFactory.jsonBuilder()
+				.startObject()
+					.field("name", name)
+					.startObject(FIELD)
+						.field("type", "polygon")
+						.startArray("coordinates")
+							.startArray();
+		for (double[] point : ring) {
+			source.startArray().value(point[0]).value(point[1]).endArray();
+		}
+		return source.endArray().endArray().endObject().endObject();
+	}
+
+	@Override
+	public String toString() {
+		return getKey();
+	}
+}
@@ -0,0 +1,132 @@
+package org.elasticsearchfr.tests.helper;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.elasticsearch.action.admin.cluster.health.ClusterHealthResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.ESLoggerFactory;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.node.Node;
+import org.elasticsearch.node.NodeBuilder;
+
+/**
+ * One or more Elasticsearch nodes running in the current JVM.
+ * <br>With one node, we start a node with elasticsearch.yml settings only.
+ * With more nodes, each node gets its own name, nodes talk using the local transport
+ * (or TCP on loopback) and indices are spread over shards and replicas.
+ * <br>Default settings can be changed with system properties:
+ * <ul>
+ * <li><code>tests.cluster.nodes</code>: number of nodes (1)</li>
+ * <li><code>tests.cluster.transport</code>: <code>local</code> or <code>tcp</code> (local)</li>
+ * <li><code>tests.cluster.shards</code>: shards per index (number of nodes)</li>
+ * <li><code>tests.cluster.replicas</code>: replicas per shard (0 with one node, 1 otherwise)</li>
+ * </ul>
+ */
+public class TestCluster {
+	private static final ESLogger logger = ESLoggerFactory.getLogger(TestCluster.class.getName());
+
+	private final Node[] nodes;
+	private final Settings settings;
+	private final AtomicInteger next = new AtomicInteger();
+
+	/**
+	 * Create a cluster using system properties
+	 */
+	public TestCluster() {
+		this(Integer.getInteger("tests.cluster.nodes", 1), ImmutableSettings.Builder.EMPTY_SETTINGS);
+	}
+
+	/**
+	 * @param size number of nodes
+	 * @param settings settings added to each node (they win over elasticsearch.yml and defaults)
+	 */
+	public TestCluster(int size, Settings settings) {
+		if (size < 1) {
+			throw new IllegalArgumentException("A cluster needs at least one node. Got [" + size + "].");
+		}
+		this.nodes = new Node[size];
+		this.settings = settings;
+	}
+
+	/**
+	 * Start all nodes and wait for the cluster to be green
+	 */
+	public void start() {
+		for (int i = 0; i < nodes.length; i++) {
+			nodes[i] = NodeBuilder.nodeBuilder().settings(nodeSettings(i)).node();
+		}
+
+		ClusterHealthResponse health = client(0).admin().cluster().prepareHealth()
+				.setWaitForGreenStatus()
+				.setWaitForNodes(Integer.toString(nodes.length))
+				.execute().actionGet();
+		if (health.isTimedOut()) {
+			throw new IllegalStateException("Cluster of " + nodes.length + " nodes is not green: " + health.getStatus());
+		}
+
+		logger.info("Cluster started with {} node(s)", nodes.length);
+	}
+
+	private Settings nodeSettings(int i) {
+		ImmutableSettings.Builder builder = ImmutableSettings.settingsBuilder();
+
+		if (nodes.length > 1) {
+			builder.put("node.name", "JavaTests JUnit Node " + i);
+			builder.put("index.number_of_shards", Integer.getInteger("tests.cluster.shards", nodes.length));
+			builder.put("index.number_of_replicas", Integer.getInteger("tests.cluster.replicas", 1));
+
+			if ("tcp".equals(System.getProperty("tests.cluster.transport", "local"))) {
+				builder.put("node.local", false);
+				builder.put("network.host", "127.0.0.1");
+				builder.put("discovery.zen.ping.unicast.hosts", "127.0.0.1[9300-" + (9300 + nodes.length - 1) + "]");
+			} else {
+				builder.put("node.local", true);
+			}
+		}
+
+		return builder.put(settings).build();
+	}
+
+	/**
+	 * @return number of nodes
+	 */
+	public int size() {
+		return nodes.length;
+	}
+
+	/**
+	 * @param i node number, from 0
+	 * @return the node
+	 */
+	public Node node(int i) {
+		return nodes[i];
+	}
+
+	/**
+	 * @param i node number, from 0
+	 * @return a client connected to node i
+	 */
+	public Client client(int i) {
+		return nodes[i].client();
+	}
+
+	/**
+	 * @return a client connected to the next node (round robin)
+	 */
+	public Client client() {
+		return client((next.getAndIncrement() & Integer.MAX_VALUE) % nodes.length);
+	}
+
+	/**
+	 * Stop all nodes
+	 */
+	public void close() {
+		for (Node node : nodes) {
+			if (node != null) {
+				node.close();
+			}
+		}
+	}
+}
@@ -1,40 +1,297 @@
 package org.elasticsearchfr.tests.helper;
 
 import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import junit.framework.Assert;
 
+import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.common.io.FileSystemUtils;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.ESLoggerFactory;
 import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.indices.IndexMissingException;
 import org.elasticsearch.node.Node;
-import org.elasticsearch.node.NodeBuilder;
+import org.elasticsearchfr.tests.bean.BeerCodec.Format;
+import org.elasticsearchfr.tests.bean.BeerGenerator;
 import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
 
+/**
+ * Start the test nodes once per JVM and share them between test classes, which may run in parallel
+ * (<code>mvn test -Pparallel</code>).
+ * <br>Shared corpus are read-only. Indices written by a test class must be named with {@link #index(String)}:
+ * they live in the class namespace and are removed (with templates) after the class.
+ */
 public class TestNodeHelper {
-	
+	private static final ESLogger logger = ESLoggerFactory.getLogger(TestNodeHelper.class.getName());
+
+	/**
+	 * Elasticsearch nodes. Set <code>-Dtests.cluster.nodes</code> to run tests on more than one node.
+	 */
+	protected static volatile TestCluster cluster;
+
+	/**
+	 * Elasticsearch node (the first node of the cluster)
+	 */
+	protected static volatile Node node;
+
+	/**
+	 * Corpus shared by tests. Set <code>-Dtests.corpus.size</code> to run with more beers
+	 * and <code>-Dtests.corpus.format=smile</code> to index binary sources.
+	 * <br>Beers have 3 nested ingredients (<code>-Dtests.corpus.ingredients</code>).
+	 */
+	protected static final BeerCorpus MEAL = new BeerCorpus("meal",
+			Integer.getInteger("tests.corpus.size", 1000),
+			new BeerGenerator(Long.getLong("tests.corpus.seed", 0L)).ingredients(Integer.getInteger("tests.corpus.ingredients", 3)))
+			.format(Format.valueOf(System.getProperty("tests.corpus.format", "json").toUpperCase()));
+
+	/**
+	 * Breweries and their beers (parent/child) shared by join tests. Set <code>-Dtests.breweries.size</code>
+	 * and <code>-Dtests.breweries.fanout</code> (beers per brewery) to change it.
+	 */
+	protected static final BreweryCorpus BREWERIES = new BreweryCorpus("breweries",
+			Integer.getInteger("tests.breweries.size", 100), Integer.getInteger("tests.breweries.fanout", 10),
+			Long.getLong("tests.corpus.seed", 0L));
+
+	/**
+	 * Polygons shared by geo shape tests. Published as <code>shapes</code>, where elasticsearch
+	 * looks for pre-indexed shapes by default.
+	 */
+	protected static final ShapeCorpus SHAPES = new ShapeCorpus("shapes",
+			Integer.getInteger("tests.shapes.size", 1000), Long.getLong("tests.corpus.seed", 0L));
 
 	/**
-	 * Elasticsearch node
+	 * Corpus built for this JVM. Set <code>-Dtests.corpus.cache=dir</code> to keep them in a directory
+	 * and reuse them in the next runs (see {@link CorpusFixtures#persistent(boolean)}).
 	 */
-	protected static Node node;
+	protected static volatile CorpusFixtures fixtures;
+
+	/**
+	 * Instrumented clients of a test class and their latencies
+	 */
+	private static class ClassClients {
+		private final ClientMetrics metrics = new ClientMetrics();
+		private InstrumentedClient[] clients;
+
+		synchronized InstrumentedClient client(int i) {
+			if (clients == null) {
+				clients = new InstrumentedClient[cluster.size()];
+				for (int n = 0; n < clients.length; n++) {
+					clients[n] = new InstrumentedClient(cluster.client(n), metrics);
+				}
+			}
+			return clients[i];
+		}
+	}
+
+	/**
+	 * Clients of the test class running in this thread (and the threads it starts). A test class runs in
+	 * one thread, even with <code>-Pparallel</code>: classes do not record calls of each other.
+	 */
+	private static final InheritableThreadLocal<ClassClients> classClients = new InheritableThreadLocal<ClassClients>();
+
+	/**
+	 * Clients for calls made out of a test class
+	 */
+	private static final ClassClients sharedClients = new ClassClients();
+
+	private static final AtomicInteger nextClient = new AtomicInteger();
+
+	/**
+	 * Give each test class its own {@link ClientMetrics} and report them once the class is done
+	 */
+	@ClassRule
+	public static final TestRule latencyReporter = new TestRule() {
+		public Statement apply(final Statement base, final Description description) {
+			return new Statement() {
+				@Override
+				public void evaluate() throws Throwable {
+					ClassClients clients = new ClassClients();
+					classClients.set(clients);
+					try {
+						base.evaluate();
+					} finally {
+						classClients.remove();
+						logger.info("Client latencies of {}:\n{}", description.getTestClass().getSimpleName(),
+								clients.metrics.report());
+					}
+				}
+			};
+		}
+	};
+
+	/**
+	 * Remove the indices of a test class namespace once the class is done
+	 */
+	@ClassRule
+	public static final TestRule namespaceCleaner = new TestRule() {
+		public Statement apply(final Statement base, final Description description) {
+			return new Statement() {
+				@Override
+				public void evaluate() throws Throwable {
+					try {
+						base.evaluate();
+					} finally {
+						dropNamespace(namespace(description.getTestClass()));
+					}
+				}
+			};
+		}
+	};
 
 	@BeforeClass
 	public static void setUpBeforeClass() throws Exception {
-		if (node == null) {
-			// We remove old data before launching tests
-			removeOldDataDir();
-			
-			// Then we start our node for tests
-			node = NodeBuilder.nodeBuilder().node();
+		if (node != null) {
+			return;
+		}
+		synchronized (TestNodeHelper.class) {
+			if (node != null) {
+				// Started by another test class running in parallel
+				return;
+			}
+
+			String cache = System.getProperty("tests.corpus.cache");
+			if (cache == null) {
+				// We remove old data before launching tests
+				removeOldDataDir();
+				cluster = new TestCluster();
+			} else {
+				// Corpus built by previous runs are recovered from the cache directory
+				cluster = new TestCluster(Integer.getInteger("tests.cluster.nodes", 1),
+						CorpusFixtures.persistentSettings(new File(cache)));
+			}
+
+			// Then we start our nodes for tests and wait for the green status
+			cluster.start();
+			Node started = cluster.node(0);
+
+			Assert.assertNotNull(started);
+			Assert.assertFalse(started.isClosed());
+
+			fixtures = new CorpusFixtures(started.client()).persistent(cache != null);
+			if (cache != null) {
+				fixtures.removeUnfinished();
+			}
 
-			// We wait now for the yellow (or green) status
-			node.client().admin().cluster().prepareHealth()
-					.setWaitForYellowStatus().execute().actionGet();
+			// Published last: other classes only skip the start once everything is ready
+			node = started;
+		}
+	}
+
+	/**
+	 * @return latencies of the calls made with {@link #client()} by the running test class
+	 */
+	protected static ClientMetrics metrics() {
+		return classClients().metrics;
+	}
+
+	/**
+	 * With more than one node, each call gives a client on another node.
+	 * <br>Calls are recorded in {@link #metrics()}.
+	 * @return a client
+	 */
+	protected static Client client() {
+		return client((nextClient.getAndIncrement() & Integer.MAX_VALUE) % cluster.size());
+	}
+
+	/**
+	 * @param i node number, from 0
+	 * @return a client connected to node i. Calls are recorded in {@link #metrics()}.
+	 */
+	protected static Client client(int i) {
+		return classClients().client(i);
+	}
 
-			Assert.assertNotNull(node);
-			Assert.assertFalse(node.isClosed());
+	private static ClassClients classClients() {
+		ClassClients clients = classClients.get();
+		return clients == null ? sharedClients : clients;
+	}
+
+	/**
+	 * @param name
+	 * @return the name of an index private to this test class, removed after the class
+	 */
+	protected String index(String name) {
+		return namespace(getClass()) + name;
+	}
+
+	/**
+	 * @param testClass
+	 * @return prefix of the indices of a test class
+	 */
+	static String namespace(Class<?> testClass) {
+		return testClass.getSimpleName().toLowerCase() + "_";
+	}
+
+	private static void dropNamespace(String namespace) {
+		if (node == null) {
+			return;
 		}
+		Client client = node.client();
+		MetaData metaData = client.admin().cluster().prepareState().execute().actionGet().getState().metaData();
+		for (IndexMetaData index : metaData.indices().values()) {
+			if (index.index().startsWith(namespace)) {
+				logger.debug("Removing index [{}]", index.index());
+				try {
+					client.admin().indices().prepareDelete(index.index()).execute().actionGet();
+				} catch (IndexMissingException e) {
+					// Already removed in the background (see ResettableCorpus): fine!
+				}
+			}
+		}
+		for (String template : metaData.templates().keySet()) {
+			if (template.startsWith(namespace)) {
+				logger.debug("Removing template [{}]", template);
+				client.admin().indices().prepareDeleteTemplate(template).execute().actionGet();
+			}
+		}
+	}
+
+	/**
+	 * Get a corpus shared with other tests. Tests must not modify it.
+	 * @param corpus
+	 * @return the name to search
+	 * @throws Exception
+	 */
+	protected static String readOnlyCorpus(Corpus corpus) throws Exception {
+		return fixtures.readOnly(corpus);
+	}
+
+	/**
+	 * Get a private copy of a corpus. Tests have to {@link #dropCorpus(String)} it when done.
+	 * @param corpus
+	 * @return the name of the index holding the copy
+	 * @throws Exception
+	 */
+	protected static String writableCorpus(Corpus corpus) throws Exception {
+		return fixtures.writableCopy(corpus);
+	}
+
+	/**
+	 * Get a copy of a corpus behind an alias in this class namespace. Tests modify it through the alias and
+	 * {@link ResettableCorpus#reset()} it instead of deleting their documents or the whole index.
+	 * @param corpus
+	 * @param name alias name, prefixed with the class name (see {@link #index(String)})
+	 * @return the resettable copy, removed after the class
+	 * @throws Exception
+	 */
+	protected ResettableCorpus resettableCorpus(Corpus corpus, String name) throws Exception {
+		return fixtures.resettable(corpus, index(name));
+	}
+
+	/**
+	 * Remove a copy created by {@link #writableCorpus(Corpus)}
+	 * @param index
+	 */
+	protected static void dropCorpus(String index) {
+		fixtures.drop(index);
 	}
 
 	private static void removeOldDataDir() throws Exception {